@@ -0,0 +1,70 @@
+package com.example.backend.cli;
+
+import com.example.backend.dto.ImportReport;
+import com.example.backend.dto.ImportRowError;
+import com.example.backend.service.ProductImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command line product import. Runs instead of the server when started with
+ * --import.file=inventory.csv [--import.format=ndjson] --spring.main.web-application-type=none
+ */
+@Component
+@ConditionalOnProperty("import.file")
+public class ProductImportRunner implements ApplicationRunner {
+    
+    private final ProductImportService productImportService;
+    private final ConfigurableApplicationContext context;
+    private final String file;
+    private final String format;
+    
+    @Autowired
+    public ProductImportRunner(ProductImportService productImportService,
+                               ConfigurableApplicationContext context,
+                               @Value("${import.file}") String file,
+                               @Value("${import.format:}") String format) {
+        this.productImportService = productImportService;
+        this.context = context;
+        this.file = file;
+        this.format = format;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path path = Path.of(file);
+        String importFormat = format.isBlank() ? formatOf(path) : format;
+        
+        ImportReport report;
+        try (InputStream input = Files.newInputStream(path)) {
+            report = productImportService.importProducts(input, importFormat, progress ->
+                    System.out.printf("%d rows read, %d imported, %d failed%n",
+                            progress.getProcessed(), progress.getImported(), progress.getFailed()));
+        }
+        
+        for (ImportRowError error : report.getErrors()) {
+            System.err.printf("line %d: %s%n", error.getLine(), error.getMessage());
+        }
+        System.out.printf("Done in %d ms%n", report.getElapsedMs());
+        
+        int exitCode = report.getFailed() == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+    
+    private static String formatOf(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl")
+                ? ProductImportService.NDJSON
+                : ProductImportService.CSV;
+    }
+}
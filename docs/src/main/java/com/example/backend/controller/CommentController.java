@@ -0,0 +1,128 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.CommentRequest;
+import com.example.backend.service.CommentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/comments")
+public class CommentController {
+    
+    private final CommentService commentService;
+    
+    @Autowired
+    public CommentController(CommentService commentService) {
+        this.commentService = commentService;
+    }
+    
+    /**
+     * Submit a comment for moderation
+     * @param request Product, customer, comment text and rating
+     * @return ID of the new comment
+     */
+    @PostMapping
+    public ResponseEntity<?> addComment(@RequestBody CommentRequest request) {
+        try {
+            return ResponseEntity.ok(Map.of("commentId", commentService.addComment(request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Approve a comment
+     * @param commentId Comment ID
+     * @return Success message
+     */
+    @PutMapping("/{commentId}/approve")
+    public ResponseEntity<String> approveComment(@PathVariable Integer commentId) {
+        try {
+            commentService.approveComment(commentId);
+            return ResponseEntity.ok("Comment approved successfully");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Edit a comment
+     * @param commentId Comment ID
+     * @param request New comment text and rating
+     * @return Success message
+     */
+    @PutMapping("/{commentId}")
+    public ResponseEntity<String> updateComment(@PathVariable Integer commentId,
+                                                @RequestBody CommentRequest request) {
+        try {
+            commentService.updateComment(commentId, request.getCommentBody(), request.getRating());
+            return ResponseEntity.ok("Comment updated successfully");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Remove a comment
+     * @param commentId Comment ID
+     * @return Success message
+     */
+    @DeleteMapping("/{commentId}")
+    public ResponseEntity<String> removeComment(@PathVariable Integer commentId) {
+        try {
+            commentService.removeComment(commentId);
+            return ResponseEntity.ok("Comment deleted successfully");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Get a page of comments waiting for moderation, oldest first
+     * @param cursor nextCursor of the previous page
+     * @param size Page size
+     * @return Page of comments with product and customer summaries
+     */
+    @GetMapping("/moderation")
+    public ResponseEntity<?> getModerationQueue(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(commentService.getModerationQueue(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Approve many comments at once
+     * @param commentIds Comment IDs
+     * @return Counts and the comments that were not waiting for moderation
+     */
+    @PostMapping("/moderation/approve")
+    public ResponseEntity<?> approveComments(@RequestBody List<Integer> commentIds) {
+        try {
+            return ResponseEntity.ok(commentService.approveComments(commentIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Reject and delete many comments at once
+     * @param commentIds Comment IDs
+     * @return Counts and the comments that were not waiting for moderation
+     */
+    @PostMapping("/moderation/reject")
+    public ResponseEntity<?> rejectComments(@RequestBody List<Integer> commentIds) {
+        try {
+            return ResponseEntity.ok(commentService.rejectComments(commentIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+} 
\ No newline at end of file
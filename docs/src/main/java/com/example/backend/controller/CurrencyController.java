@@ -1,22 +1,49 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.ConversionItem;
+import com.example.backend.dto.ConversionResult;
+import com.example.backend.model.ExchangeRateHistory;
 import com.example.backend.service.CurrencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/currencies")
 public class CurrencyController {
     
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int STREAM_CHUNK_SIZE = 1000;
+    
     private final CurrencyService currencyService;
+    private final ObjectMapper objectMapper;
+    private final long streamTimeoutMs;
     
     @Autowired
-    public CurrencyController(CurrencyService currencyService) {
+    public CurrencyController(CurrencyService currencyService, ObjectMapper objectMapper,
+                              @Value("${currency.convert-stream.timeout-ms:600000}") long streamTimeoutMs) {
         this.currencyService = currencyService;
+        this.objectMapper = objectMapper;
+        this.streamTimeoutMs = streamTimeoutMs;
     }
     
     /**
@@ -87,6 +114,59 @@ public class CurrencyController {
         }
     }
     
+    /**
+     * Convert a batch of prices, each to its own currency, in one request
+     * @param items Amounts in base currency and target currency codes
+     * @return Rates version and one result per item, in request order
+     */
+    @PostMapping(value = "/convert/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> convertBatch(@RequestBody List<ConversionItem> items) {
+        try {
+            return ResponseEntity.ok(currencyService.convertBatch(items));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Convert a newline delimited JSON stream of prices.
+     * Lines are converted in chunks as they arrive, so memory use does not grow with the input.
+     * The whole stream must finish within currency.convert-stream.timeout-ms (10 minutes by
+     * default), otherwise the response is cut off; split larger inputs into several requests.
+     * @param body One conversion item per line
+     * @param response Response the results are streamed to
+     * @return Conversion task with the stream timeout
+     */
+    @PostMapping(value = "/convert/batch", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> convertStream(InputStream body, HttpServletResponse response) {
+        // An explicit timeout, the container default for async requests is only 30 seconds on Tomcat
+        Callable<Void> conversion = () -> {
+            response.setContentType(NDJSON.toString());
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            OutputStream out = new BufferedOutputStream(response.getOutputStream());
+            List<ConversionItem> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(objectMapper.readValue(line, ConversionItem.class));
+                } catch (JsonProcessingException e) {
+                    // Leaves a null item, which comes back as an error result on this line
+                    chunk.add(null);
+                }
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    writeResults(out, chunk);
+                }
+            }
+            writeResults(out, chunk);
+            out.flush();
+            return null;
+        };
+        return new WebAsyncTask<>(streamTimeoutMs, conversion);
+    }
+    
     /**
      * Get the base currency
      * @return Base currency code
@@ -95,4 +175,36 @@ public class CurrencyController {
     public ResponseEntity<String> getBaseCurrency() {
         return ResponseEntity.ok(currencyService.getBaseCurrency());
     }
+    
+    /**
+     * Get the version of the exchange rates this node converts with
+     * @return Rates version and load time
+     */
+    @GetMapping("/version")
+    public ResponseEntity<Map<String, Object>> getRatesVersion() {
+        return ResponseEntity.ok(currencyService.getRatesVersion());
+    }
+    
+    /**
+     * Get the rate history of a currency
+     * @param currencyCode Currency code
+     * @return Rate changes, newest first
+     */
+    @GetMapping("/{currencyCode}/history")
+    public ResponseEntity<List<ExchangeRateHistory>> getRateHistory(@PathVariable String currencyCode) {
+        return ResponseEntity.ok(currencyService.getRateHistory(currencyCode));
+    }
+    
+    private void writeResults(OutputStream out, List<ConversionItem> chunk) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        for (ConversionResult result : currencyService.convertBatch(chunk).getResults()) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        // Let the client read this chunk while the next one is converted
+        out.flush();
+        chunk.clear();
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.PlaceOrderRequest;
+import com.example.backend.service.OrderService;
+import com.example.backend.service.OrderStatusStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/orders")
+public class OrderController {
+    
+    private final OrderService orderService;
+    private final OrderStatusStream orderStatusStream;
+    
+    @Autowired
+    public OrderController(OrderService orderService, OrderStatusStream orderStatusStream) {
+        this.orderService = orderService;
+        this.orderStatusStream = orderStatusStream;
+    }
+    
+    /**
+     * Place an order
+     * @param idempotencyKey Key identifying this checkout, retries with the same key return the same order
+     * @param request Customer and ordered products with quantities
+     * @return Created order with server computed totals
+     */
+    @PostMapping
+    public ResponseEntity<?> placeOrder(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody PlaceOrderRequest request) {
+        try {
+            return ResponseEntity.ok(orderService.placeOrder(request, idempotencyKey));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Get the order history of a customer, newest first
+     * @param userId Customer user ID
+     * @param cursor nextCursor of the previous page
+     * @param size Page size
+     * @return Page of orders with their items and products
+     */
+    @GetMapping("/customer/{userId}")
+    public ResponseEntity<?> getOrderHistory(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(orderService.getOrderHistory(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Stream status changes of a customer's orders and order items as server-sent events
+     * @param userId Customer user ID
+     * @return Event stream, one order-status event per committed change
+     */
+    @GetMapping(value = "/customer/{userId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderEvents(@PathVariable Integer userId) {
+        return orderStatusStream.subscribe(userId);
+    }
+    
+    /**
+     * Get order event stream metrics
+     * @return Open streams and event counters
+     */
+    @GetMapping("/events/stats")
+    public ResponseEntity<Map<String, Object>> getOrderEventStats() {
+        return ResponseEntity.ok(orderStatusStream.getStats());
+    }
+    
+    /**
+     * Change the status of an order
+     * @param orderId Order ID
+     * @param status Name of the new status
+     * @return Success message
+     */
+    @PutMapping("/{orderId}/status")
+    public ResponseEntity<String> updateOrderStatus(@PathVariable Integer orderId, @RequestParam String status) {
+        try {
+            orderService.updateOrderStatus(orderId, status);
+            return ResponseEntity.ok("Order status updated successfully");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Change the status of an order item
+     * @param orderItemId Order item ID
+     * @param status Name of the new status
+     * @return Success message
+     */
+    @PutMapping("/items/{orderItemId}/status")
+    public ResponseEntity<String> updateItemStatus(@PathVariable Integer orderItemId, @RequestParam String status) {
+        try {
+            orderService.updateItemStatus(orderItemId, status);
+            return ResponseEntity.ok("Order item status updated successfully");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.example.backend.controller;
+
+import com.example.backend.service.OutboxDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/outbox")
+public class OutboxController {
+    
+    private final OutboxDispatcher outboxDispatcher;
+    
+    @Autowired
+    public OutboxController(OutboxDispatcher outboxDispatcher) {
+        this.outboxDispatcher = outboxDispatcher;
+    }
+    
+    /**
+     * Get outbox metrics
+     * @return Pending and dead message counts and delivery counters
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(outboxDispatcher.getStats());
+    }
+    
+    /**
+     * Retry a message that ran out of attempts
+     * @param messageId Message ID
+     * @return Success message
+     */
+    @PostMapping("/{messageId}/retry")
+    public ResponseEntity<String> retry(@PathVariable Long messageId) {
+        try {
+            outboxDispatcher.retry(messageId);
+            return ResponseEntity.ok("Message scheduled for retry");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+} 
\ No newline at end of file
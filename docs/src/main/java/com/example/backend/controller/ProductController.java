@@ -1,12 +1,32 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.BulkUpdateResult;
+import com.example.backend.dto.CursorPage;
+import com.example.backend.dto.ImportReport;
+import com.example.backend.dto.PriceBucket;
+import com.example.backend.dto.PriceUpdateItem;
+import com.example.backend.dto.ProductFilterRequest;
+import com.example.backend.dto.ProductSummary;
+import com.example.backend.dto.StockUpdateItem;
 import com.example.backend.model.*;
+import com.example.backend.service.ProductBulkUpdateService;
+import com.example.backend.service.ProductImportService;
 import com.example.backend.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,15 +36,27 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/products")
 public class ProductController {
     
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductBulkUpdateService productBulkUpdateService;
+    private final ObjectMapper objectMapper;
     
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ProductImportService productImportService,
+                             ProductBulkUpdateService productBulkUpdateService,
+                             ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.productBulkUpdateService = productBulkUpdateService;
+        this.objectMapper = objectMapper;
     }
     
     /**
      * Get all active products
+     * Loads the whole catalog into memory, prefer /page or /stream for large catalogs
      * @return List of products
      */
     @GetMapping
@@ -32,6 +64,72 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllActiveProducts());
     }
     
+    /**
+     * Get a page of active products using a product ID cursor
+     * @param after Last product ID of the previous page
+     * @param size Page size
+     * @return Page of products and the cursor for the next page
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<ProductSummary>> getProductPage(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.getActiveProductPage(after, size));
+    }
+    
+    /**
+     * Stream all active products as newline delimited JSON
+     * @return One product summary per line
+     */
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            productService.streamActiveProducts(summary -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(summary));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+    
+    /**
+     * Filter available products with facet counts
+     * @param request Filter values (modelId, colorId, packageTypeId, brandId, bodyStyleId,
+     *                transmissionId, energySourceId, minPrice, maxPrice), currency, sort and page cursor
+     * @return Matching products, total count and facet counts per dimension
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<?> filterProducts(ProductFilterRequest request) {
+        try {
+            return ResponseEntity.ok(productService.filterProducts(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Filter active car models
+     * @param brandId Brand ID
+     * @param bodyStyleId Body style ID
+     * @param transmissionId Transmission ID
+     * @param energySourceId Energy source ID
+     * @return List of matching car models
+     */
+    @GetMapping("/models/filter")
+    public ResponseEntity<List<CarModel>> filterCarModels(
+            @RequestParam(required = false) Integer brandId,
+            @RequestParam(required = false) Integer bodyStyleId,
+            @RequestParam(required = false) Integer transmissionId,
+            @RequestParam(required = false) Integer energySourceId) {
+        return ResponseEntity.ok(productService.filterCarModels(brandId, bodyStyleId, transmissionId, energySourceId));
+    }
+    
     /**
      * Get product with price in specific currency
      * @param productId Product ID
@@ -51,28 +149,59 @@ public class ProductController {
     }
     
     /**
-     * Find all customers who ordered a specific product
+     * Get the rating of a product
      * @param productId Product ID
-     * @return List of customers
+     * @return Rating count, average and star histogram of the approved comments
+     */
+    @GetMapping("/{productId}/rating")
+    public ResponseEntity<?> getProductRating(@PathVariable Integer productId) {
+        try {
+            return ResponseEntity.ok(productService.getProductRating(productId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Get product cache metrics
+     * @return Hit, miss, eviction and rejection counts
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getProductCacheStats() {
+        return ResponseEntity.ok(productService.getProductCacheStats());
+    }
+    
+    /**
+     * Find the customers who ordered a specific product
+     * @param productId Product ID
+     * @param after Last user ID of the previous page
+     * @param size Page size
+     * @return Page of distinct customers with the cursor for the next page
      */
     @GetMapping("/{productId}/customers")
-    public ResponseEntity<?> getCustomersWhoOrderedProduct(@PathVariable Integer productId) {
+    public ResponseEntity<?> getCustomersWhoOrderedProduct(
+            @PathVariable Integer productId,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(required = false) Integer size) {
         try {
-            List<Customer> customers = productService.getCustomersWhoOrderedProduct(productId);
-            
-            // Project to simplified objects to avoid circular references
-            List<Map<String, Object>> simplifiedCustomers = customers.stream()
-                    .map(c -> {
-                        Map<String, Object> map = new HashMap<>();
-                        map.put("userId", c.getUserId());
-                        map.put("name", c.getName());
-                        map.put("surname", c.getSurname());
-                        map.put("email", c.getEmail());
-                        return map;
-                    })
-                    .collect(Collectors.toList());
-                    
-            return ResponseEntity.ok(simplifiedCustomers);
+            return ResponseEntity.ok(productService.getCustomersWhoOrderedProduct(productId, after, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Count the customers who ordered a specific product
+     * @param productId Product ID
+     * @return Number of distinct customers
+     */
+    @GetMapping("/{productId}/customers/count")
+    public ResponseEntity<?> countCustomersWhoOrderedProduct(@PathVariable Integer productId) {
+        try {
+            return ResponseEntity.ok(Map.of(
+                "productId", productId,
+                "customerCount", productService.countCustomersWhoOrderedProduct(productId)
+            ));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -129,6 +258,39 @@ public class ProductController {
         }
     }
     
+    /**
+     * Set the stock of many products at once
+     * @param items Product ID and stock pairs
+     * @return Counts and the items that failed
+     */
+    @PutMapping("/bulk/stock")
+    public ResponseEntity<?> bulkUpdateStock(@RequestBody List<StockUpdateItem> items) {
+        try {
+            BulkUpdateResult result = productBulkUpdateService.updateStock(items);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Set the price of many products at once, recording price history
+     * @param items Product ID, price and currency
+     * @param changedBy User who made the change
+     * @return Counts and the items that failed
+     */
+    @PutMapping("/bulk/price")
+    public ResponseEntity<?> bulkUpdatePrice(
+            @RequestBody List<PriceUpdateItem> items,
+            @RequestParam(required = false) String changedBy) {
+        try {
+            BulkUpdateResult result = productBulkUpdateService.updatePrices(items, changedBy);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     /**
      * Remove a product and all its comments
      * @param productId Product ID
@@ -167,6 +329,27 @@ public class ProductController {
         return ResponseEntity.ok(result);
     }
     
+    /**
+     * Get brand inventory summary
+     * @return Map of brand name to total stock
+     */
+    @GetMapping("/brands/inventory")
+    public ResponseEntity<Map<String, Object>> getBrandInventorySummary() {
+        Map<Brand, Long> inventory = productService.getBrandInventorySummary();
+        
+        Map<String, Object> result = new HashMap<>();
+        for (Map.Entry<Brand, Long> entry : inventory.entrySet()) {
+            Map<String, Object> brandInfo = new HashMap<>();
+            brandInfo.put("brandId", entry.getKey().getBrandId());
+            brandInfo.put("brandName", entry.getKey().getBrandName());
+            brandInfo.put("totalStock", entry.getValue());
+            
+            result.put(entry.getKey().getBrandName(), brandInfo);
+        }
+        
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * Add a new product
      * @param product Product
@@ -177,6 +360,26 @@ public class ProductController {
         return ResponseEntity.ok(productService.addProduct(product));
     }
     
+    /**
+     * Bulk import products from a CSV (with header row) or NDJSON request body
+     * @param format csv or ndjson
+     * @param body Request body, read as a stream
+     * @return Import report with per-row errors
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importProducts(
+            @RequestParam(defaultValue = "csv") String format,
+            InputStream body) {
+        try {
+            ImportReport report = productImportService.importProducts(body, format, null);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
     /**
      * Get product price history
      * @param productId Product ID
@@ -191,4 +394,26 @@ public class ProductController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+    
+    /**
+     * Get product price history downsampled for charts
+     * @param productId Product ID
+     * @param from Range start, defaults to the first price change
+     * @param to Range end, defaults to now
+     * @param resolution Bucket width such as 15m, 1h, 1d, 1w or PT6H
+     * @return Open, high, low, close and average price per bucket
+     */
+    @GetMapping("/{productId}/price-history/series")
+    public ResponseEntity<?> getPriceSeries(
+            @PathVariable Integer productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String resolution) {
+        try {
+            List<PriceBucket> series = productService.getPriceSeries(productId, from, to, resolution);
+            return ResponseEntity.ok(series);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 } 
\ No newline at end of file
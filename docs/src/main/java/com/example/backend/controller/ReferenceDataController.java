@@ -0,0 +1,40 @@
+package com.example.backend.controller;
+
+import com.example.backend.service.ReferenceDataRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reference-data")
+public class ReferenceDataController {
+    
+    private final ReferenceDataRegistry referenceDataRegistry;
+    
+    @Autowired
+    public ReferenceDataController(ReferenceDataRegistry referenceDataRegistry) {
+        this.referenceDataRegistry = referenceDataRegistry;
+    }
+    
+    /**
+     * Get all catalog lookup values (brands, colors, package types, body styles...)
+     * @return Map of table name to its rows
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, List<?>>> getReferenceData() {
+        Map<String, List<?>> result = new HashMap<>();
+        result.put("brands", referenceDataRegistry.brands().findAll());
+        result.put("colors", referenceDataRegistry.colors().findAll());
+        result.put("packageTypes", referenceDataRegistry.packageTypes().findAll());
+        result.put("bodyStyles", referenceDataRegistry.bodyStyles().findAll());
+        result.put("transmissions", referenceDataRegistry.transmissions().findAll());
+        result.put("energySources", referenceDataRegistry.energySources().findAll());
+        result.put("orderStatuses", referenceDataRegistry.orderStatuses().findAll());
+        result.put("orderItemStatuses", referenceDataRegistry.orderItemStatuses().findAll());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.RepricingRequest;
+import com.example.backend.dto.RepricingResult;
+import com.example.backend.service.RepricingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/repricing")
+public class RepricingController {
+    
+    private final RepricingService repricingService;
+    
+    @Autowired
+    public RepricingController(RepricingService repricingService) {
+        this.repricingService = repricingService;
+    }
+    
+    /**
+     * Run a repricing campaign. With dryRun (the default) only the price diff is returned.
+     * @param request Rules, dry-run flag and the user making the change
+     * @return Price changes and, when applied, the write outcome
+     */
+    @PostMapping
+    public ResponseEntity<?> reprice(@RequestBody RepricingRequest request) {
+        try {
+            RepricingResult result = repricingService.reprice(request);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.backend.controller;
+
+import com.example.backend.model.SalesRollup;
+import com.example.backend.service.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics/sales")
+public class SalesAnalyticsController {
+    
+    private final SalesRollupService salesRollupService;
+    
+    @Autowired
+    public SalesAnalyticsController(SalesRollupService salesRollupService) {
+        this.salesRollupService = salesRollupService;
+    }
+    
+    /**
+     * Get revenue, units and order counts per time bucket
+     * @param granularity HOUR, DAY or MONTH
+     * @param dimension BRAND, MODEL or ENERGY_SOURCE
+     * @param from Start of the range, inclusive
+     * @param to End of the range, exclusive
+     * @param dimensionId Only this brand, model or energy source
+     * @return Rollup rows ordered by bucket start
+     */
+    @GetMapping
+    public ResponseEntity<?> getSales(
+            @RequestParam(defaultValue = SalesRollupService.DAY) String granularity,
+            @RequestParam(defaultValue = SalesRollupService.BRAND) String dimension,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer dimensionId) {
+        try {
+            List<SalesRollup> sales = salesRollupService.getSales(
+                    granularity.toUpperCase(), dimension.toUpperCase(), from, to, dimensionId);
+            return ResponseEntity.ok(sales);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Add every order that is not yet in the rollups
+     * @return Orders added, chunks processed and elapsed time
+     */
+    @PostMapping("/backfill")
+    public ResponseEntity<?> backfill() {
+        try {
+            return ResponseEntity.ok(salesRollupService.backfill());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Get how many orders are waiting to be rolled up
+     * @return Pending order count and backfill state
+     */
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(salesRollupService.getStatus());
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.SearchHit;
+import com.example.backend.dto.Suggestion;
+import com.example.backend.service.AutocompleteService;
+import com.example.backend.service.CatalogSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+    
+    private static final int MAX_LIMIT = 100;
+    
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final AutocompleteService autocompleteService;
+    
+    @Autowired
+    public SearchController(CatalogSearchIndex catalogSearchIndex, AutocompleteService autocompleteService) {
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.autocompleteService = autocompleteService;
+    }
+    
+    /**
+     * Search car models, brands, colors and package types by name
+     * @param q Search text
+     * @param type Optional document type (MODEL, BRAND, COLOR, PACKAGE_TYPE)
+     * @param limit Maximum number of results
+     * @return Matches ordered by relevance
+     */
+    @GetMapping
+    public ResponseEntity<List<SearchHit>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(catalogSearchIndex.search(q, type, Math.min(limit, MAX_LIMIT)));
+    }
+    
+    /**
+     * Suggest brands, models, colors and package types for the text typed so far
+     * @param prefix Typed text
+     * @param limit Maximum number of suggestions
+     * @return Suggestions ordered by popularity
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(autocompleteService.suggest(prefix, limit));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.CursorPage;
+import com.example.backend.model.StockMovement;
+import com.example.backend.service.StockMovementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stock/products")
+public class StockMovementController {
+    
+    private final StockMovementService stockMovementService;
+    
+    @Autowired
+    public StockMovementController(StockMovementService stockMovementService) {
+        this.stockMovementService = stockMovementService;
+    }
+    
+    /**
+     * Get the stock history of a product, newest first
+     * @param productId Product ID
+     * @param before Cursor from the previous page
+     * @param size Page size
+     * @return Page of stock movements
+     */
+    @GetMapping("/{productId}/movements")
+    public ResponseEntity<CursorPage<StockMovement>> getMovements(
+            @PathVariable Integer productId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(stockMovementService.getMovements(productId, before, size));
+    }
+    
+    /**
+     * Get the stock of a product as snapshot plus newer movements
+     * @param productId Product ID
+     * @return Ledger stock
+     */
+    @GetMapping("/{productId}")
+    public ResponseEntity<Map<String, Object>> getLedgerStock(@PathVariable Integer productId) {
+        return ResponseEntity.ok(stockMovementService.getLedgerStock(productId));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.StockReservation;
+import com.example.backend.service.StockReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stock/reservations")
+public class StockReservationController {
+    
+    private final StockReservationService stockReservationService;
+    
+    @Autowired
+    public StockReservationController(StockReservationService stockReservationService) {
+        this.stockReservationService = stockReservationService;
+    }
+    
+    /**
+     * Hold stock of a product during checkout
+     * @param productId Product ID
+     * @param quantity Number of units
+     * @return Reservation with its expiry time
+     */
+    @PostMapping
+    public ResponseEntity<?> reserve(
+            @RequestParam Integer productId,
+            @RequestParam(defaultValue = "1") int quantity) {
+        try {
+            StockReservation reservation = stockReservationService.reserve(productId, quantity);
+            return ResponseEntity.ok(reservation);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Confirm a reservation as sold
+     * @param reservationId Reservation ID
+     * @return Confirmed reservation
+     */
+    @PostMapping("/{reservationId}/confirm")
+    public ResponseEntity<?> confirm(@PathVariable String reservationId) {
+        try {
+            StockReservation reservation = stockReservationService.confirm(reservationId);
+            return ResponseEntity.ok(reservation);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Release a reservation, returning its stock
+     * @param reservationId Reservation ID
+     * @return Success message
+     */
+    @DeleteMapping("/{reservationId}")
+    public ResponseEntity<?> release(@PathVariable String reservationId) {
+        try {
+            stockReservationService.release(reservationId);
+            return ResponseEntity.ok("Reservation released");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Get reservation metrics
+     * @return Reservation counters
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(stockReservationService.getStats());
+    }
+}
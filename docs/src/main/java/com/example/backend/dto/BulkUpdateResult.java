@@ -0,0 +1,30 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkUpdateResult {
+    
+    private int requested;
+    
+    private int updated;
+    
+    // Items whose value already matched, nothing was written for them
+    private int unchanged;
+    
+    private int failed;
+    
+    // Items whose price changed after the caller read it, left as they were
+    private int skipped;
+    
+    private List<Integer> skippedProductIds = new ArrayList<>();
+    
+    // Only failed items are listed, every other item was applied
+    private List<BulkUpdateFailure> failures = new ArrayList<>();
+    
+    private long elapsedMs;
+}
@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionBatchResult {
+    
+    private String baseCurrency;
+    
+    // Every item was converted with the rates of this version
+    private long ratesVersion;
+    
+    // One result per requested item, in request order
+    private List<ConversionResult> results;
+}
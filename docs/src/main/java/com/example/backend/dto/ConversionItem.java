@@ -0,0 +1,17 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionItem {
+    
+    // Amount in base currency, at most two decimals
+    private BigDecimal amount;
+    
+    private String targetCurrency;
+}
@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionResult {
+    
+    private BigDecimal originalAmount;
+    
+    // Null when the item could not be converted
+    private BigDecimal convertedAmount;
+    
+    private String currencyCode;
+    
+    private String error;
+}
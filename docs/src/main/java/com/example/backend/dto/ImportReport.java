@@ -0,0 +1,22 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ImportReport {
+    
+    private long processed;
+    
+    private long imported;
+    
+    private long failed;
+    
+    // Only the first errors are kept, failed has the full count
+    private List<ImportRowError> errors = new ArrayList<>();
+    
+    private long elapsedMs;
+}
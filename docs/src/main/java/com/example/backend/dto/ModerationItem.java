@@ -0,0 +1,19 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ModerationItem {
+    
+    private Integer commentId;
+    private String commentBody;
+    private Integer rating;
+    private LocalDateTime commentDate;
+    private ProductSummary product;
+    private CustomerSummary customer;
+}
@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ModerationResult {
+    
+    private int requested;
+    
+    private int processed;
+    
+    // Comments that were not waiting for moderation, because they do not exist or are already approved
+    private List<Integer> skipped = new ArrayList<>();
+    
+    private long elapsedMs;
+}
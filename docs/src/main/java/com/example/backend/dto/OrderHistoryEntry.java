@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderHistoryEntry {
+    
+    private Integer orderId;
+    private LocalDateTime transactionDate;
+    private String status;
+    private BigDecimal totalAmount;
+    private String currencyCode;
+    private List<OrderHistoryItem> items;
+}
@@ -0,0 +1,27 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderResult {
+    
+    private Integer orderId;
+    private Integer userId;
+    private String status;
+    private BigDecimal totalAmount;
+    private String currencyCode;
+    private LocalDateTime transactionDate;
+    private List<OrderLineResult> items;
+    
+    // True when the order already existed for the idempotency key and nothing new was created
+    private boolean replayed;
+}
@@ -0,0 +1,17 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlaceOrderRequest {
+    
+    private Integer userId;
+    
+    // Prices are never taken from the client, totals are computed from the catalog
+    private List<OrderLine> items;
+}
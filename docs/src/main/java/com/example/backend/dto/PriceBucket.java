@@ -0,0 +1,30 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucket {
+    
+    private LocalDateTime start;
+    
+    // Price in effect when the bucket starts
+    private BigDecimal open;
+    
+    private BigDecimal high;
+    
+    private BigDecimal low;
+    
+    private BigDecimal close;
+    
+    // Time-weighted over the part of the bucket where a price was known
+    private BigDecimal average;
+    
+    // Number of price changes inside the bucket
+    private int changes;
+}
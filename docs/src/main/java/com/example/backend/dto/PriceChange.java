@@ -0,0 +1,18 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceChange {
+    
+    private Integer productId;
+    
+    private BigDecimal oldPrice;
+    
+    private BigDecimal newPrice;
+}
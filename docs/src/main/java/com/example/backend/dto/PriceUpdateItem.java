@@ -0,0 +1,19 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceUpdateItem {
+    
+    private Integer productId;
+    
+    private BigDecimal price;
+    
+    // Currency of the given price, defaults to the base currency
+    private String currencyCode;
+}
@@ -0,0 +1,31 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilterRequest {
+    
+    private Integer modelId;
+    private Integer colorId;
+    private Integer packageTypeId;
+    private Integer brandId;
+    private Integer bodyStyleId;
+    private Integer transmissionId;
+    private Integer energySourceId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    
+    // Currency of minPrice/maxPrice and of the returned convertedPrice, base prices when null
+    private String currency;
+    // priceAsc or priceDesc, product ID order when null
+    private String sort;
+    
+    // nextCursor of the previous page: the last product ID, or "convertedCents_productId" when sorted by price
+    private String after;
+    private Integer size;
+}
@@ -0,0 +1,24 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilterResult {
+    
+    private List<ProductSummary> items;
+    
+    // Total number of matching products
+    private int total;
+    
+    // Pass back as after, null when there are no more products
+    private Object nextCursor;
+    
+    // Facet dimension -> facet value ID -> number of matching products
+    private Map<String, Map<Integer, Integer>> facets;
+}
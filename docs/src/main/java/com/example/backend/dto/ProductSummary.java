@@ -0,0 +1,31 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummary {
+
+    private Integer productId;
+    private Integer modelId;
+    private String modelName;
+    private Integer brandId;
+    private String brandName;
+    private Integer colorId;
+    private String colorName;
+    private Integer packageTypeId;
+    private String packageTypeName;
+    private BigDecimal price;
+    private Integer stock;
+    private Boolean isActive;
+    private BigDecimal convertedPrice;
+    private String currencyCode;
+    private Double averageRating;
+    private Integer ratingCount;
+}
@@ -0,0 +1,19 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingSummary {
+    
+    private Integer productId;
+    private Integer ratingCount;
+    private Double averageRating;
+    
+    // Number of approved comments per star, 1 to 5
+    private Map<Integer, Integer> stars;
+}
@@ -0,0 +1,19 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class RepricingRequest {
+    
+    // Applied in order, a product matched by several rules gets all of them
+    private List<RepricingRule> rules = new ArrayList<>();
+    
+    // Only compute the changes, nothing is written
+    private boolean dryRun = true;
+    
+    private String changedBy;
+}
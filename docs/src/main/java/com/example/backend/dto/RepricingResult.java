@@ -0,0 +1,23 @@
+package com.example.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class RepricingResult {
+    
+    private boolean dryRun;
+    
+    // Active products matched by at least one rule
+    private int matched;
+    
+    private List<PriceChange> changes = new ArrayList<>();
+    
+    // Outcome of the write, null for a dry run
+    private BulkUpdateResult applied;
+    
+    private long elapsedMs;
+}
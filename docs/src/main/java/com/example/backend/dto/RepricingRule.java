@@ -0,0 +1,26 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepricingRule {
+    
+    // Selectors, a null selector matches every product
+    private Integer brandId;
+    private Integer modelId;
+    private Integer energySourceId;
+    private Integer packageTypeId;
+    
+    // Percentage change, e.g. -5 for a 5% discount
+    private BigDecimal percent;
+    
+    // Fixed amount added after the percentage, in currencyCode
+    private BigDecimal amount;
+    
+    private String currencyCode;
+}
@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+    
+    // MODEL, BRAND, COLOR or PACKAGE_TYPE
+    private String type;
+    
+    private Integer id;
+    
+    private String label;
+    
+    private double score;
+}
@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservation {
+    
+    private String reservationId;
+    
+    private Integer productId;
+    
+    private int quantity;
+    
+    // The hold is released automatically if it is not confirmed by then
+    private Instant expiresAt;
+}
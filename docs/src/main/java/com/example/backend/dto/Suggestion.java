@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+    
+    // MODEL, BRAND, COLOR or PACKAGE_TYPE
+    private String type;
+    
+    private Integer id;
+    
+    private String label;
+    
+    // Number of active products behind this suggestion
+    private long weight;
+}
@@ -0,0 +1,36 @@
+package com.example.backend.event;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA entity listener that turns entity lifecycle callbacks into Spring events.
+ * Hibernate creates it through the Spring bean container, so it can be injected.
+ */
+public class EntityChangeListener {
+    
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    public EntityChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+    
+    @PostPersist
+    public void onCreated(Object entity) {
+        eventPublisher.publishEvent(EntityChangedEvent.created(entity));
+    }
+    
+    @PostUpdate
+    public void onUpdated(Object entity) {
+        eventPublisher.publishEvent(EntityChangedEvent.updated(entity));
+    }
+    
+    @PostRemove
+    public void onDeleted(Object entity) {
+        eventPublisher.publishEvent(EntityChangedEvent.deleted(entity));
+    }
+}
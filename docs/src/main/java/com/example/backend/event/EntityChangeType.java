@@ -0,0 +1,7 @@
+package com.example.backend.event;
+
+public enum EntityChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,40 @@
+package com.example.backend.event;
+
+import lombok.Getter;
+import org.hibernate.Hibernate;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
+
+/**
+ * Published for every insert, update or delete of an entity that uses {@link EntityChangeListener}.
+ * Listeners should use @TransactionalEventListener so they only see committed changes.
+ */
+@Getter
+public class EntityChangedEvent<T> implements ResolvableTypeProvider {
+    
+    private final T entity;
+    private final EntityChangeType type;
+    
+    public EntityChangedEvent(T entity, EntityChangeType type) {
+        this.entity = entity;
+        this.type = type;
+    }
+    
+    public static <T> EntityChangedEvent<T> created(T entity) {
+        return new EntityChangedEvent<>(entity, EntityChangeType.CREATED);
+    }
+    
+    public static <T> EntityChangedEvent<T> updated(T entity) {
+        return new EntityChangedEvent<>(entity, EntityChangeType.UPDATED);
+    }
+    
+    public static <T> EntityChangedEvent<T> deleted(T entity) {
+        return new EntityChangedEvent<>(entity, EntityChangeType.DELETED);
+    }
+    
+    // Lets listeners declare EntityChangedEvent<Product> and only receive product changes
+    @Override
+    public ResolvableType getResolvableType() {
+        return ResolvableType.forClassWithGenerics(getClass(), Hibernate.getClass(entity));
+    }
+}
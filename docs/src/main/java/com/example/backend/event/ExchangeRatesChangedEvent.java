@@ -0,0 +1,16 @@
+package com.example.backend.event;
+
+import lombok.Getter;
+
+/**
+ * Published by CurrencyService after it has swapped in a newer exchange rate snapshot.
+ */
+@Getter
+public class ExchangeRatesChangedEvent {
+    
+    private final long version;
+    
+    public ExchangeRatesChangedEvent(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.backend.event;
+
+import lombok.Getter;
+import java.time.LocalDateTime;
+
+/**
+ * Published by OrderService when an order is placed or the status of an order or one of its items changes.
+ * Listeners bound to the transaction phase see it only once the change has committed.
+ */
+@Getter
+public class OrderStatusChangedEvent {
+    
+    private final Integer userId;
+    private final Integer orderId;
+    
+    // Null when the status of the whole order changed
+    private final Integer orderItemId;
+    
+    private final String status;
+    private final LocalDateTime changedAt;
+    
+    public OrderStatusChangedEvent(Integer userId, Integer orderId, Integer orderItemId, String status,
+                                   LocalDateTime changedAt) {
+        this.userId = userId;
+        this.orderId = orderId;
+        this.orderItemId = orderItemId;
+        this.status = status;
+        this.changedAt = changedAt;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.backend.event;
+
+import com.example.backend.model.OutboxMessage;
+
+/**
+ * Delivers outbox messages of one event type. Every Spring bean implementing this interface is
+ * registered with the outbox dispatcher.
+ * Delivery is at least once: a message is redelivered when any handler of its type fails or the
+ * node dies mid-delivery, so handlers must be idempotent.
+ */
+public interface OutboxHandler {
+    
+    /**
+     * Get the event type this handler delivers
+     * @return Event type, as passed to OutboxService.publish
+     */
+    String eventType();
+    
+    /**
+     * Deliver a message. Throwing schedules a retry with backoff.
+     * @param message Message with its JSON payload
+     * @throws Exception If delivery failed
+     */
+    void handle(OutboxMessage message) throws Exception;
+}
@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "Comments", indexes = {
     @Index(name = "idx_comment_product", columnList = "productId"),
-    @Index(name = "idx_comment_user", columnList = "userId")
+    @Index(name = "idx_comment_user", columnList = "userId"),
+    @Index(name = "idx_comment_moderation", columnList = "isApproved, commentDate")
 })
 @Data
 @NoArgsConstructor
@@ -38,6 +39,8 @@ public class Comment {
     @Column(nullable = false)
     private Integer rating;
     
+    // The moderation queue seeks on (commentDate, commentId), which needs a date on every comment
+    @Column(nullable = false)
     private LocalDateTime commentDate;
     
     private Boolean isApproved = false;
@@ -0,0 +1,31 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ExchangeRates")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeRate {
+    
+    @Id
+    @Column(length = 3)
+    private String currencyCode;
+    
+    // Units of this currency per one unit of the base currency
+    @Column(nullable = false, precision = 18, scale = 6)
+    private BigDecimal rate;
+    
+    // Rate table version in which this rate was last changed
+    @Column(nullable = false)
+    private Long version;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+} 
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ExchangeRateHistory", indexes = {
+    @Index(name = "idx_rate_history_currency", columnList = "currencyCode, changedAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeRateHistory {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long rateHistoryId;
+    
+    @Column(nullable = false, length = 3)
+    private String currencyCode;
+    
+    // Null when the currency was added
+    @Column(precision = 18, scale = 6)
+    private BigDecimal oldRate;
+    
+    @Column(nullable = false, precision = 18, scale = 6)
+    private BigDecimal newRate;
+    
+    @Column(nullable = false)
+    private Long version;
+    
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+} 
\ No newline at end of file
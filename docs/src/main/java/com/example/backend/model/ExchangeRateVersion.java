@@ -0,0 +1,26 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single row holding the current version of the exchange rate table.
+ * Writers lock and bump it, every node polls it to notice new rates.
+ */
+@Entity
+@Table(name = "ExchangeRateVersion")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeRateVersion {
+    
+    public static final Integer SINGLETON_ID = 1;
+    
+    @Id
+    private Integer id;
+    
+    @Column(nullable = false)
+    private Long version;
+} 
\ No newline at end of file
@@ -11,7 +11,10 @@ import java.util.List;
 @Entity
 @Table(name = "OrdersDetails", indexes = {
     @Index(name = "idx_order_user", columnList = "userId"),
-    @Index(name = "idx_order_status", columnList = "statusId")
+    @Index(name = "idx_order_user_date", columnList = "userId, transactionDate"),
+    @Index(name = "idx_order_status", columnList = "statusId"),
+    @Index(name = "idx_order_rolled_up", columnList = "rolledUpAt"),
+    @Index(name = "idx_order_idempotency", columnList = "userId, idempotencyKey", unique = true)
 })
 @Data
 @NoArgsConstructor
@@ -22,6 +25,8 @@ public class OrderDetail {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer orderId;
     
+    // Order history pages seek on (transactionDate, orderId), which needs a date on every order
+    @Column(nullable = false)
     private LocalDateTime transactionDate;
     
     @ManyToOne
@@ -40,10 +45,17 @@ public class OrderDetail {
     
     private LocalDateTime updatedAt;
     
+    // Client supplied key that makes retried checkouts return the same order
+    @Column(length = 64)
+    private String idempotencyKey;
+    
+    // Set once the order has been added to the sales rollups
+    private LocalDateTime rolledUpAt;
+    
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> orderItems;
     
-   
+    
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -11,6 +11,7 @@ import java.time.LocalDateTime;
 @Table(name = "OrdersItems", indexes = {
     @Index(name = "idx_orderitem_order", columnList = "orderId"),
     @Index(name = "idx_orderitem_product", columnList = "productId"),
+    @Index(name = "idx_orderitem_product_order", columnList = "productId, orderId"),
     @Index(name = "idx_orderitem_status", columnList = "itemStatusId")
 })
 @Data
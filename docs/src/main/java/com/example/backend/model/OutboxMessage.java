@@ -0,0 +1,53 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * A side effect of a business change, written in the same transaction as the change and
+ * delivered afterwards by the outbox dispatcher.
+ */
+@Entity
+@Table(name = "OutboxMessages", indexes = {
+    @Index(name = "idx_outbox_status_available", columnList = "status, availableAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long messageId;
+    
+    @Column(nullable = false, length = 50)
+    private String eventType;
+    
+    @Column(nullable = false, length = 64)
+    private String aggregateId;
+    
+    // JSON document, its shape depends on the event type
+    @Column(nullable = false, length = 4000)
+    private String payload;
+    
+    @Column(nullable = false, length = 10)
+    private String status; // PENDING, DONE, DEAD
+    
+    @Column(nullable = false)
+    private Integer attempts;
+    
+    // Not picked up before this time, pushed back while delivering and after each failure
+    @Column(nullable = false)
+    private LocalDateTime availableAt;
+    
+    @Column(length = 500)
+    private String lastError;
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime processedAt;
+}
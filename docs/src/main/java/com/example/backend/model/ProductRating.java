@@ -0,0 +1,48 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Rating totals of the approved comments of a product.
+ * Written only by the rating service, with relative updates as comments are approved, edited or removed.
+ */
+@Entity
+@Table(name = "ProductRatings", indexes = {
+    @Index(name = "idx_product_rating_updated", columnList = "updatedAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRating {
+    
+    @Id
+    private Integer productId;
+    
+    @Column(nullable = false)
+    private Integer ratingCount;
+    
+    @Column(nullable = false)
+    private Integer ratingSum;
+    
+    @Column(nullable = false)
+    private Integer stars1;
+    
+    @Column(nullable = false)
+    private Integer stars2;
+    
+    @Column(nullable = false)
+    private Integer stars3;
+    
+    @Column(nullable = false)
+    private Integer stars4;
+    
+    @Column(nullable = false)
+    private Integer stars5;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,48 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sales of one brand, model or energy source in one hour, day or month.
+ * Written only by the sales rollup service, which adds each order exactly once.
+ */
+@Entity
+@Table(name = "SalesRollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_sales_rollup", columnNames = {"granularity", "dimension", "bucketStart", "dimensionId"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long rollupId;
+    
+    @Column(nullable = false, length = 10)
+    private String granularity; // HOUR, DAY, MONTH
+    
+    @Column(nullable = false, length = 20)
+    private String dimension; // BRAND, MODEL, ENERGY_SOURCE
+    
+    @Column(nullable = false)
+    private Integer dimensionId;
+    
+    // Start of the hour, day or month in server time
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+    
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+    
+    @Column(nullable = false)
+    private Long units;
+    
+    @Column(nullable = false)
+    private Long orderCount;
+}
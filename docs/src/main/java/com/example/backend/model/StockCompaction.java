@@ -0,0 +1,28 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Single row holding how far the stock movement compactor has folded.
+ * Compactors lock it for the whole fold, so two instances never fold the same movements.
+ */
+@Entity
+@Table(name = "StockCompactions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCompaction {
+    
+    @Id
+    private Integer compactionId;
+    
+    @Column(nullable = false)
+    private Long lastMovementId;
+    
+    @Column(nullable = false)
+    private LocalDateTime compactedAt;
+}
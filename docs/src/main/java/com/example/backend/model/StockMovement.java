@@ -0,0 +1,40 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * One stock change of a product. Rows are only ever inserted.
+ * The product is a plain column rather than a relation so the table carries no foreign key
+ * and can be range-partitioned on createdAt.
+ */
+@Entity
+@Table(name = "StockMovements", indexes = {
+    @Index(name = "idx_stock_movement_product", columnList = "productId, movementId"),
+    @Index(name = "idx_stock_movement_created", columnList = "createdAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long movementId;
+    
+    @Column(nullable = false)
+    private Integer productId;
+    
+    // Signed change, negative for sales
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Column(nullable = false, length = 20)
+    private String reason; // INITIAL, ADJUSTMENT, SALE, CORRECTION, REMOVAL
+    
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+} 
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.example.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Stock of a product with every movement up to lastMovementId folded in.
+ * Written only by the stock movement compactor.
+ */
+@Entity
+@Table(name = "StockSnapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+    
+    @Id
+    private Integer productId;
+    
+    @Column(nullable = false)
+    private Integer stock;
+    
+    @Column(nullable = false)
+    private Long lastMovementId;
+    
+    @Column(nullable = false)
+    private LocalDateTime snapshotAt;
+} 
\ No newline at end of file
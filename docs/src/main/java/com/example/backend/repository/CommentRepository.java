@@ -3,10 +3,12 @@ package com.example.backend.repository;
 import com.example.backend.model.Comment;
 import com.example.backend.model.Customer;
 import com.example.backend.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -28,4 +30,15 @@ public interface CommentRepository extends JpaRepository<Comment, Integer> {
     
     @Query("SELECT COUNT(c) FROM Comment c WHERE c.isApproved = false")
     Long countUnapprovedComments();
+    
+    @Query("SELECT c.commentId, c.product.productId, c.customer.userId, c.commentBody, c.rating, c.commentDate " +
+           "FROM Comment c WHERE c.isApproved = false ORDER BY c.commentDate ASC, c.commentId ASC")
+    List<Object[]> findOldestUnapproved(Pageable pageable);
+    
+    // Same seek form as OrderDetailRepository.findOrdersBefore, in ascending order
+    @Query("SELECT c.commentId, c.product.productId, c.customer.userId, c.commentBody, c.rating, c.commentDate " +
+           "FROM Comment c WHERE c.isApproved = false AND c.commentDate >= :afterDate " +
+           "AND (c.commentDate > :afterDate OR c.commentId > :afterCommentId) " +
+           "ORDER BY c.commentDate ASC, c.commentId ASC")
+    List<Object[]> findUnapprovedAfter(LocalDateTime afterDate, Integer afterCommentId, Pageable pageable);
 } 
\ No newline at end of file
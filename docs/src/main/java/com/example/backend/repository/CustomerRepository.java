@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,4 +23,8 @@ public interface CustomerRepository extends JpaRepository<Customer, Integer> {
            "LOWER(c.surname) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(c.email) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Customer> searchCustomers(String keyword);
+    
+    @Query("SELECT c.userId, c.name, c.surname, c.email FROM Customer c " +
+           "WHERE c.userId IN :userIds ORDER BY c.userId ASC")
+    List<Object[]> findSummariesByUserIdIn(Collection<Integer> userIds);
 } 
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.ExchangeRateHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ExchangeRateHistoryRepository extends JpaRepository<ExchangeRateHistory, Long> {
+    
+    List<ExchangeRateHistory> findByCurrencyCodeOrderByChangedAtDesc(String currencyCode);
+} 
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.ExchangeRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, String> {
+} 
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.ExchangeRateVersion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ExchangeRateVersionRepository extends JpaRepository<ExchangeRateVersion, Integer> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM ExchangeRateVersion v WHERE v.id = :id")
+    Optional<ExchangeRateVersion> findForUpdate(Integer id);
+    
+    @Query("SELECT v.version FROM ExchangeRateVersion v WHERE v.id = :id")
+    Optional<Long> findVersion(Integer id);
+} 
\ No newline at end of file
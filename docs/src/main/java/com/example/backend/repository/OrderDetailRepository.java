@@ -3,12 +3,14 @@ package com.example.backend.repository;
 import com.example.backend.model.Customer;
 import com.example.backend.model.OrderDetail;
 import com.example.backend.model.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderDetailRepository extends JpaRepository<OrderDetail, Integer> {
@@ -24,4 +26,19 @@ public interface OrderDetailRepository extends JpaRepository<OrderDetail, Intege
     
     @Query("SELECT COUNT(o) FROM OrderDetail o WHERE o.status.statusId = :statusId")
     Long countOrdersByStatusId(Integer statusId);
+    
+    @Query("SELECT o FROM OrderDetail o JOIN FETCH o.status " +
+           "WHERE o.customer.userId = :userId AND o.idempotencyKey = :idempotencyKey")
+    Optional<OrderDetail> findByIdempotencyKey(Integer userId, String idempotencyKey);
+    
+    @Query("SELECT o.orderId, o.transactionDate, s.statusName, o.totalAmount FROM OrderDetail o JOIN o.status s " +
+           "WHERE o.customer.userId = :userId ORDER BY o.transactionDate DESC, o.orderId DESC")
+    List<Object[]> findLatestOrders(Integer userId, Pageable pageable);
+    
+    // The leading <= lets MySQL seek the (userId, transactionDate) index instead of filtering the whole range
+    @Query("SELECT o.orderId, o.transactionDate, s.statusName, o.totalAmount FROM OrderDetail o JOIN o.status s " +
+           "WHERE o.customer.userId = :userId AND o.transactionDate <= :beforeDate " +
+           "AND (o.transactionDate < :beforeDate OR o.orderId < :beforeOrderId) " +
+           "ORDER BY o.transactionDate DESC, o.orderId DESC")
+    List<Object[]> findOrdersBefore(Integer userId, LocalDateTime beforeDate, Integer beforeOrderId, Pageable pageable);
 } 
\ No newline at end of file
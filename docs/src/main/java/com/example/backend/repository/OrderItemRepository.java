@@ -4,12 +4,18 @@ import com.example.backend.model.OrderDetail;
 import com.example.backend.model.OrderItem;
 import com.example.backend.model.OrderItemStatus;
 import com.example.backend.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Integer> {
@@ -27,4 +33,23 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Integer> {
     
     @Query("SELECT SUM(oi.quantity) FROM OrderItem oi WHERE oi.product.productId = :productId")
     Long sumQuantityByProductId(Integer productId);
+    
+    @Query("SELECT oi.order.orderId, oi.orderItemId, oi.product.productId, oi.quantity, oi.unitPrice, oi.totalPrice, " +
+           "oi.itemStatus.statusName FROM OrderItem oi WHERE oi.order.orderId IN :orderIds " +
+           "ORDER BY oi.order.orderId, oi.orderItemId")
+    List<Object[]> findLinesByOrderIdIn(Collection<Integer> orderIds);
+    
+    @Query("SELECT DISTINCT c.userId, c.name, c.surname, c.email FROM OrderItem oi " +
+           "JOIN oi.order o JOIN o.customer c " +
+           "WHERE oi.product.productId = :productId AND c.userId > :afterUserId ORDER BY c.userId ASC")
+    List<Object[]> findBuyersAfter(Integer productId, Integer afterUserId, Pageable pageable);
+    
+    @Query("SELECT COUNT(DISTINCT o.customer.userId) FROM OrderItem oi JOIN oi.order o " +
+           "WHERE oi.product.productId = :productId")
+    long countBuyers(Integer productId);
+    
+    // MySQL Connector/J only streams rows one by one when the fetch size is Integer.MIN_VALUE
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT oi.product.productId, o.customer.userId FROM OrderItem oi JOIN oi.order o")
+    Stream<Object[]> streamProductBuyers();
 } 
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    
+    long countByStatus(String status);
+}
@@ -20,4 +20,8 @@ public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Inte
     
     @Query("SELECT p FROM PriceHistory p WHERE p.product.productId = :productId ORDER BY p.changeDate DESC")
     List<PriceHistory> findPriceHistoryByProductId(Integer productId);
+    
+    @Query("SELECT p.changeDate, p.newPrice FROM PriceHistory p WHERE p.product.productId = :productId " +
+           "ORDER BY p.changeDate ASC, p.priceHistoryId ASC")
+    List<Object[]> findPricePointsByProductId(Integer productId);
 } 
\ No newline at end of file
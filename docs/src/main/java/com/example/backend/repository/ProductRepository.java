@@ -3,12 +3,19 @@ package com.example.backend.repository;
 import com.example.backend.model.CarModel;
 import com.example.backend.model.Color;
 import com.example.backend.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Integer> {
@@ -33,4 +40,51 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
            "(:maxPrice IS NULL OR p.price <= :maxPrice)")
     List<Product> filterProducts(Integer modelId, Integer colorId, Integer packageTypeId, 
                                 BigDecimal minPrice, BigDecimal maxPrice);
+    
+    @Query("SELECT p FROM Product p " +
+           "JOIN FETCH p.model m JOIN FETCH m.brand JOIN FETCH m.transmission " +
+           "JOIN FETCH m.bodyStyle JOIN FETCH m.energySource " +
+           "JOIN FETCH p.color JOIN FETCH p.packageType " +
+           "WHERE p.isActive = true AND p.productId > :afterId ORDER BY p.productId ASC")
+    List<Product> findActiveProductsAfter(Integer afterId, Pageable pageable);
+    
+    // MySQL Connector/J only streams rows one by one when the fetch size is Integer.MIN_VALUE
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT p FROM Product p " +
+           "JOIN FETCH p.model m JOIN FETCH m.brand JOIN FETCH m.transmission " +
+           "JOIN FETCH m.bodyStyle JOIN FETCH m.energySource " +
+           "JOIN FETCH p.color JOIN FETCH p.packageType " +
+           "WHERE p.isActive = true ORDER BY p.productId ASC")
+    Stream<Product> streamActiveProducts();
+    
+    @Query("SELECT p FROM Product p " +
+           "JOIN FETCH p.model m JOIN FETCH m.brand JOIN FETCH m.transmission " +
+           "JOIN FETCH m.bodyStyle JOIN FETCH m.energySource " +
+           "JOIN FETCH p.color JOIN FETCH p.packageType " +
+           "WHERE p.productId IN :productIds ORDER BY p.productId ASC")
+    List<Product> findWithDetailsByProductIdIn(Collection<Integer> productIds);
+    
+    @Query("SELECT p.model.modelId, COUNT(p) FROM Product p WHERE p.isActive = true GROUP BY p.model.modelId")
+    List<Object[]> countActiveProductsByModel();
+    
+    @Query("SELECT p.color.colorId, COUNT(p) FROM Product p WHERE p.isActive = true GROUP BY p.color.colorId")
+    List<Object[]> countActiveProductsByColor();
+    
+    @Query("SELECT p.packageType.packageTypeId, COUNT(p) FROM Product p WHERE p.isActive = true " +
+           "GROUP BY p.packageType.packageTypeId")
+    List<Object[]> countActiveProductsByPackageType();
+    
+    @Query("SELECT p.model.modelId, SUM(p.stock) FROM Product p WHERE p.isActive = true GROUP BY p.model.modelId")
+    List<Object[]> sumActiveStockByModel();
+    
+    @Query("SELECT p.model.modelId, SUM(p.stock) FROM Product p WHERE p.isActive = true " +
+           "AND p.model.modelId IN :modelIds GROUP BY p.model.modelId")
+    List<Object[]> sumActiveStockByModelIn(Collection<Integer> modelIds);
+    
+    @Query("SELECT p.stock FROM Product p WHERE p.productId = :productId AND p.isActive = true")
+    Optional<Integer> findActiveStockByProductId(Integer productId);
+    
+    @Query("SELECT p.productId, p.price, m.brand.brandId, m.modelId, m.energySource.energySourceId, " +
+           "p.packageType.packageTypeId FROM Product p JOIN p.model m WHERE p.isActive = true")
+    List<Object[]> findActivePricingRows();
 } 
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+    
+    @Query("SELECT r FROM SalesRollup r WHERE r.granularity = :granularity AND r.dimension = :dimension " +
+           "AND r.bucketStart >= :from AND r.bucketStart < :to " +
+           "AND (:dimensionId IS NULL OR r.dimensionId = :dimensionId) " +
+           "ORDER BY r.bucketStart ASC, r.dimensionId ASC")
+    List<SalesRollup> findRollups(String granularity, String dimension, LocalDateTime from, LocalDateTime to,
+                                  Integer dimensionId);
+}
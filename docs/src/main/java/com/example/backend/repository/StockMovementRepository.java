@@ -0,0 +1,24 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    
+    @Query("SELECT m FROM StockMovement m WHERE m.productId = :productId " +
+           "AND (:beforeId IS NULL OR m.movementId < :beforeId) ORDER BY m.movementId DESC")
+    List<StockMovement> findMovementsBefore(Integer productId, Long beforeId, Pageable pageable);
+    
+    @Query("SELECT COALESCE(SUM(m.quantity), 0) FROM StockMovement m " +
+           "WHERE m.productId = :productId AND m.movementId > :afterId")
+    Long sumQuantityAfter(Integer productId, Long afterId);
+    
+    @Query("SELECT COUNT(m) FROM StockMovement m WHERE m.productId = :productId AND m.movementId > :afterId")
+    long countAfter(Integer productId, Long afterId);
+} 
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Integer> {
+} 
\ No newline at end of file
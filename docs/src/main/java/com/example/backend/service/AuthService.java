@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -22,14 +23,20 @@ public class AuthService {
     private final CustomerRepository customerRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final OutboxService outboxService;
 
     @Autowired
     public AuthService(CustomerRepository customerRepository, 
                       RoleRepository roleRepository,
-                      PasswordEncoder passwordEncoder) {
+                      PasswordEncoder passwordEncoder,
+                      ReferenceDataRegistry referenceDataRegistry,
+                      OutboxService outboxService) {
         this.customerRepository = customerRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.outboxService = outboxService;
     }
 
     @Transactional
@@ -53,8 +60,8 @@ public class AuthService {
         customer.setAddress(request.getAddress());
         customer.setIsActive(true);
 
-        // Assign USER role
-        Role userRole = roleRepository.findByName("USER")
+        // Assign USER role (served from the in-memory reference data)
+        Role userRole = referenceDataRegistry.roles().findByName("USER")
                 .orElseGet(() -> {
                     Role newRole = new Role();
                     newRole.setName("USER");
@@ -64,6 +71,10 @@ public class AuthService {
 
         customer.addRole(userRole);
         Customer savedCustomer = customerRepository.save(customer);
+        outboxService.publish(OutboxService.CUSTOMER_REGISTERED, savedCustomer.getUserId(), Map.of(
+                "userId", savedCustomer.getUserId(),
+                "email", savedCustomer.getEmail(),
+                "name", savedCustomer.getName()));
 
         return AuthResponse.builder()
                 .userId(savedCustomer.getUserId())
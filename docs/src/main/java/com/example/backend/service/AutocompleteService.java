@@ -0,0 +1,339 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.Suggestion;
+import com.example.backend.event.EntityChangedEvent;
+import com.example.backend.model.Brand;
+import com.example.backend.model.CarModel;
+import com.example.backend.model.Color;
+import com.example.backend.model.PackageType;
+import com.example.backend.repository.BrandRepository;
+import com.example.backend.repository.CarModelRepository;
+import com.example.backend.repository.ColorRepository;
+import com.example.backend.repository.PackageTypeRepository;
+import com.example.backend.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Type-ahead suggestions for brands, models, colors and package types.
+ * Suggestions live in an immutable array-encoded prefix trie where every node stores its
+ * best entries by popularity, so a lookup is one walk down the trie without locking.
+ * The trie is rebuilt in the background and swapped in atomically when reference data changes.
+ */
+@Service
+public class AutocompleteService {
+    
+    private static final Logger log = LoggerFactory.getLogger(AutocompleteService.class);
+    
+    // Suggestions kept per trie node
+    private static final int TOP_K = 10;
+    
+    private final BrandRepository brandRepository;
+    private final CarModelRepository carModelRepository;
+    private final ColorRepository colorRepository;
+    private final PackageTypeRepository packageTypeRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    private final AtomicReference<Trie> trie = new AtomicReference<>(Trie.build(Collections.emptyList()));
+    private final AtomicBoolean rebuildPending = new AtomicBoolean(false);
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autocomplete-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @Autowired
+    public AutocompleteService(BrandRepository brandRepository,
+                               CarModelRepository carModelRepository,
+                               ColorRepository colorRepository,
+                               PackageTypeRepository packageTypeRepository,
+                               ProductRepository productRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.brandRepository = brandRepository;
+        this.carModelRepository = carModelRepository;
+        this.colorRepository = colorRepository;
+        this.packageTypeRepository = packageTypeRepository;
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBrandChanged(EntityChangedEvent<Brand> event) {
+        requestRebuild();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarModelChanged(EntityChangedEvent<CarModel> event) {
+        requestRebuild();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onColorChanged(EntityChangedEvent<Color> event) {
+        requestRebuild();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPackageTypeChanged(EntityChangedEvent<PackageType> event) {
+        requestRebuild();
+    }
+    
+    /**
+     * Schedule a rebuild, bursts of changes collapse into a single rebuild
+     */
+    public void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Autocomplete rebuild failed, keeping the previous trie", e);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Get suggestions for a prefix
+     * @param prefix Text typed so far
+     * @param limit Maximum number of suggestions
+     * @return Suggestions ordered by popularity
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return trie.get().lookup(CatalogSearchIndex.normalize(prefix), limit);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+    
+    private void rebuild() {
+        List<Suggestion> entries = readOnlyTransaction.execute(status -> loadEntries());
+        trie.set(Trie.build(entries));
+        log.info("Autocomplete trie rebuilt with {} entries", entries.size());
+    }
+    
+    private List<Suggestion> loadEntries() {
+        Map<Integer, Long> modelCounts = toCountMap(productRepository.countActiveProductsByModel());
+        Map<Integer, Long> colorCounts = toCountMap(productRepository.countActiveProductsByColor());
+        Map<Integer, Long> packageCounts = toCountMap(productRepository.countActiveProductsByPackageType());
+        Map<Integer, Long> brandCounts = new HashMap<>();
+        
+        List<Suggestion> entries = new ArrayList<>();
+        for (CarModel model : carModelRepository.findByIsActiveTrue()) {
+            long count = modelCounts.getOrDefault(model.getModelId(), 0L);
+            brandCounts.merge(model.getBrand().getBrandId(), count, Long::sum);
+            entries.add(new Suggestion(CatalogSearchIndex.MODEL, model.getModelId(),
+                    model.getBrand().getBrandName() + " " + model.getModelName(), count));
+        }
+        for (Brand brand : brandRepository.findAll()) {
+            entries.add(new Suggestion(CatalogSearchIndex.BRAND, brand.getBrandId(), brand.getBrandName(),
+                    brandCounts.getOrDefault(brand.getBrandId(), 0L)));
+        }
+        for (Color color : colorRepository.findAll()) {
+            entries.add(new Suggestion(CatalogSearchIndex.COLOR, color.getColorId(), color.getColorName(),
+                    colorCounts.getOrDefault(color.getColorId(), 0L)));
+        }
+        for (PackageType packageType : packageTypeRepository.findAll()) {
+            entries.add(new Suggestion(CatalogSearchIndex.PACKAGE_TYPE, packageType.getPackageTypeId(),
+                    packageType.getPackageTypeName(),
+                    packageCounts.getOrDefault(packageType.getPackageTypeId(), 0L)));
+        }
+        return entries;
+    }
+    
+    private static Map<Integer, Long> toCountMap(List<Object[]> rows) {
+        Map<Integer, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Integer) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+    
+    /**
+     * Immutable trie flattened into parallel arrays in breadth-first order.
+     * Children of a node are contiguous and sorted by character, so each step is a binary search.
+     */
+    static final class Trie {
+        
+        private final Suggestion[] suggestions;
+        private final char[] edgeChars;
+        private final int[] firstChild;
+        private final int[] childCount;
+        private final int[] topOffset;
+        private final int[] topLength;
+        private final int[] topEntries;
+        
+        private Trie(Suggestion[] suggestions, char[] edgeChars, int[] firstChild, int[] childCount,
+                     int[] topOffset, int[] topLength, int[] topEntries) {
+            this.suggestions = suggestions;
+            this.edgeChars = edgeChars;
+            this.firstChild = firstChild;
+            this.childCount = childCount;
+            this.topOffset = topOffset;
+            this.topLength = topLength;
+            this.topEntries = topEntries;
+        }
+        
+        List<Suggestion> lookup(String prefix, int limit) {
+            if (prefix.isEmpty() || limit <= 0) {
+                return Collections.emptyList();
+            }
+            int node = 0;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = child(node, prefix.charAt(i));
+                if (node < 0) {
+                    return Collections.emptyList();
+                }
+            }
+            int count = Math.min(limit, topLength[node]);
+            List<Suggestion> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(suggestions[topEntries[topOffset[node] + i]]);
+            }
+            return result;
+        }
+        
+        private int child(int node, char c) {
+            int low = firstChild[node];
+            int high = low + childCount[node] - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = edgeChars[mid];
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+        
+        static Trie build(List<Suggestion> entries) {
+            Suggestion[] suggestions = entries.toArray(new Suggestion[0]);
+            Comparator<Integer> byPopularity = Comparator
+                    .comparingLong((Integer i) -> suggestions[i].getWeight()).reversed()
+                    .thenComparing(i -> suggestions[i].getLabel());
+            
+            BuildNode root = new BuildNode();
+            for (int i = 0; i < suggestions.length; i++) {
+                String key = CatalogSearchIndex.normalize(suggestions[i].getLabel());
+                // Index every word start so "ser" also finds "BMW 3 Series"
+                int start = 0;
+                while (start < key.length()) {
+                    root.insert(key, start, i);
+                    int space = key.indexOf(' ', start);
+                    if (space < 0) {
+                        break;
+                    }
+                    start = space + 1;
+                }
+            }
+            root.computeTop(byPopularity);
+            
+            // Flatten breadth-first so the children of every node end up next to each other
+            List<BuildNode> order = new ArrayList<>();
+            ArrayDeque<BuildNode> queue = new ArrayDeque<>();
+            queue.add(root);
+            while (!queue.isEmpty()) {
+                BuildNode node = queue.poll();
+                order.add(node);
+                queue.addAll(node.children.values());
+            }
+            
+            int size = order.size();
+            char[] edgeChars = new char[size];
+            int[] firstChild = new int[size];
+            int[] childCount = new int[size];
+            int[] topOffset = new int[size];
+            int[] topLength = new int[size];
+            int totalTop = order.stream().mapToInt(node -> node.top.size()).sum();
+            int[] topEntries = new int[totalTop];
+            
+            int nextChild = 1;
+            int nextTop = 0;
+            for (int i = 0; i < size; i++) {
+                BuildNode node = order.get(i);
+                edgeChars[i] = node.edge;
+                firstChild[i] = nextChild;
+                childCount[i] = node.children.size();
+                nextChild += node.children.size();
+                topOffset[i] = nextTop;
+                topLength[i] = node.top.size();
+                for (Integer entry : node.top) {
+                    topEntries[nextTop++] = entry;
+                }
+            }
+            return new Trie(suggestions, edgeChars, firstChild, childCount, topOffset, topLength, topEntries);
+        }
+    }
+    
+    /**
+     * Mutable node only used while building the trie
+     */
+    private static final class BuildNode {
+        char edge;
+        final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        final List<Integer> terminals = new ArrayList<>();
+        List<Integer> top = Collections.emptyList();
+        
+        void insert(String key, int position, int entry) {
+            BuildNode node = this;
+            for (int i = position; i < key.length(); i++) {
+                char c = key.charAt(i);
+                BuildNode child = node.children.get(c);
+                if (child == null) {
+                    child = new BuildNode();
+                    child.edge = c;
+                    node.children.put(c, child);
+                }
+                node = child;
+            }
+            node.terminals.add(entry);
+        }
+        
+        void computeTop(Comparator<Integer> byPopularity) {
+            Set<Integer> candidates = new LinkedHashSet<>(terminals);
+            for (BuildNode child : children.values()) {
+                child.computeTop(byPopularity);
+                candidates.addAll(child.top);
+            }
+            List<Integer> sorted = new ArrayList<>(candidates);
+            sorted.sort(byPopularity);
+            top = sorted.size() > TOP_K ? new ArrayList<>(sorted.subList(0, TOP_K)) : sorted;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.SearchHit;
+import com.example.backend.event.EntityChangeType;
+import com.example.backend.event.EntityChangedEvent;
+import com.example.backend.model.Brand;
+import com.example.backend.model.CarModel;
+import com.example.backend.model.Color;
+import com.example.backend.model.PackageType;
+import com.example.backend.repository.BrandRepository;
+import com.example.backend.repository.CarModelRepository;
+import com.example.backend.repository.ColorRepository;
+import com.example.backend.repository.PackageTypeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram inverted index over model, brand, color and package type names.
+ * Replaces leading-wildcard LIKE scans for the storefront search box; documents are
+ * scored by trigram overlap, which also tolerates small typos.
+ */
+@Service
+public class CatalogSearchIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(CatalogSearchIndex.class);
+    
+    public static final String MODEL = "MODEL";
+    public static final String BRAND = "BRAND";
+    public static final String COLOR = "COLOR";
+    public static final String PACKAGE_TYPE = "PACKAGE_TYPE";
+    
+    // Field slots: the document's own name, a related name (brand of a model), descriptive text
+    private static final int FIELD_COUNT = 3;
+    private static final double[] FIELD_WEIGHTS = {1.0, 0.6, 0.3};
+    
+    // Minimum trigram similarity for a field to count as a match
+    private static final double MIN_SIMILARITY = 0.3;
+    
+    // Added when the normalized field contains the normalized query verbatim
+    private static final double SUBSTRING_BONUS = 0.5;
+    
+    private final BrandRepository brandRepository;
+    private final CarModelRepository carModelRepository;
+    private final ColorRepository colorRepository;
+    private final PackageTypeRepository packageTypeRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Document ordinal -> document, ordinals of removed documents are reused
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<Integer> freeOrdinals = new ArrayList<>();
+    
+    // Per field slot: trigram -> ordinals of documents containing it
+    private final List<Map<String, BitSet>> postings = new ArrayList<>();
+    
+    @Autowired
+    public CatalogSearchIndex(BrandRepository brandRepository,
+                              CarModelRepository carModelRepository,
+                              ColorRepository colorRepository,
+                              PackageTypeRepository packageTypeRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.brandRepository = brandRepository;
+        this.carModelRepository = carModelRepository;
+        this.colorRepository = colorRepository;
+        this.packageTypeRepository = packageTypeRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            postings.add(new HashMap<>());
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    /**
+     * Rebuild the index from the database
+     */
+    public void rebuild() {
+        // Reference tables are small, so writers simply wait for the rebuild to finish
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            ordinals.clear();
+            freeOrdinals.clear();
+            postings.forEach(Map::clear);
+            
+            readOnlyTransaction.executeWithoutResult(status -> {
+                brandRepository.findAll().forEach(this::indexBrand);
+                carModelRepository.findByIsActiveTrue().forEach(this::indexModel);
+                colorRepository.findAll().forEach(this::indexColor);
+                packageTypeRepository.findAll().forEach(this::indexPackageType);
+            });
+            log.info("Catalog search index built with {} documents", ordinals.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBrandChanged(EntityChangedEvent<Brand> event) {
+        Brand brand = event.getEntity();
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == EntityChangeType.DELETED) {
+                remove(BRAND, brand.getBrandId());
+                return;
+            }
+            indexBrand(brand);
+            // Models carry their brand name as a secondary field
+            for (Document document : new ArrayList<>(documents)) {
+                if (document != null && MODEL.equals(document.type) && brand.getBrandId().equals(document.parentId)) {
+                    String[] fields = {document.fields[0], brand.getBrandName(), null};
+                    put(MODEL, document.id, brand.getBrandName() + " " + document.fields[0], fields, document.parentId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarModelChanged(EntityChangedEvent<CarModel> event) {
+        CarModel model = event.getEntity();
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == EntityChangeType.DELETED || !Boolean.TRUE.equals(model.getIsActive())) {
+                remove(MODEL, model.getModelId());
+            } else {
+                indexModel(model);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onColorChanged(EntityChangedEvent<Color> event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == EntityChangeType.DELETED) {
+                remove(COLOR, event.getEntity().getColorId());
+            } else {
+                indexColor(event.getEntity());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPackageTypeChanged(EntityChangedEvent<PackageType> event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == EntityChangeType.DELETED) {
+                remove(PACKAGE_TYPE, event.getEntity().getPackageTypeId());
+            } else {
+                indexPackageType(event.getEntity());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Search the catalog names
+     * @param query Search text
+     * @param type Document type to restrict the search to, or null for all types
+     * @param limit Maximum number of hits
+     * @return Hits ordered by descending relevance
+     */
+    public List<SearchHit> search(String query, String type, int limit) {
+        String normalized = normalize(query);
+        Set<String> queryTrigrams = trigrams(normalized);
+        if (queryTrigrams.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        
+        lock.readLock().lock();
+        try {
+            int size = documents.size();
+            double[] scores = new double[size];
+            BitSet candidates = new BitSet(size);
+            
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                int[] shared = new int[size];
+                Map<String, BitSet> fieldPostings = postings.get(field);
+                for (String trigram : queryTrigrams) {
+                    BitSet docs = fieldPostings.get(trigram);
+                    if (docs == null) {
+                        continue;
+                    }
+                    for (int ord = docs.nextSetBit(0); ord >= 0; ord = docs.nextSetBit(ord + 1)) {
+                        shared[ord]++;
+                    }
+                }
+                for (int ord = 0; ord < size; ord++) {
+                    if (shared[ord] == 0) {
+                        continue;
+                    }
+                    Document document = documents.get(ord);
+                    // Dice coefficient between the query and field trigram sets
+                    double similarity = 2.0 * shared[ord] / (queryTrigrams.size() + document.trigramCounts[field]);
+                    if (document.normalized[field].contains(normalized)) {
+                        similarity += SUBSTRING_BONUS;
+                    }
+                    if (similarity < MIN_SIMILARITY) {
+                        continue;
+                    }
+                    scores[ord] = Math.max(scores[ord], similarity * FIELD_WEIGHTS[field]);
+                    candidates.set(ord);
+                }
+            }
+            
+            List<SearchHit> hits = new ArrayList<>();
+            for (int ord = candidates.nextSetBit(0); ord >= 0; ord = candidates.nextSetBit(ord + 1)) {
+                Document document = documents.get(ord);
+                if (type == null || type.equals(document.type)) {
+                    hits.add(new SearchHit(document.type, document.id, document.label, scores[ord]));
+                }
+            }
+            hits.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+            return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void indexBrand(Brand brand) {
+        String[] fields = {brand.getBrandName(), null, brand.getSlogan()};
+        put(BRAND, brand.getBrandId(), brand.getBrandName(), fields, null);
+    }
+    
+    private void indexModel(CarModel model) {
+        if (!Boolean.TRUE.equals(model.getIsActive())) {
+            return;
+        }
+        Brand brand = model.getBrand();
+        String[] fields = {model.getModelName(), brand.getBrandName(), null};
+        put(MODEL, model.getModelId(), brand.getBrandName() + " " + model.getModelName(), fields, brand.getBrandId());
+    }
+    
+    private void indexColor(Color color) {
+        put(COLOR, color.getColorId(), color.getColorName(), new String[] {color.getColorName(), null, null}, null);
+    }
+    
+    private void indexPackageType(PackageType packageType) {
+        String[] fields = {packageType.getPackageTypeName(), null, null};
+        put(PACKAGE_TYPE, packageType.getPackageTypeId(), packageType.getPackageTypeName(), fields, null);
+    }
+    
+    private void put(String type, Integer id, String label, String[] fields, Integer parentId) {
+        remove(type, id);
+        
+        Document document = new Document(type, id, label, fields, parentId);
+        int ord = freeOrdinals.isEmpty() ? documents.size() : freeOrdinals.remove(freeOrdinals.size() - 1);
+        if (ord == documents.size()) {
+            documents.add(document);
+        } else {
+            documents.set(ord, document);
+        }
+        ordinals.put(key(type, id), ord);
+        
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            for (String trigram : trigrams(document.normalized[field])) {
+                postings.get(field).computeIfAbsent(trigram, k -> new BitSet()).set(ord);
+            }
+        }
+    }
+    
+    private void remove(String type, Integer id) {
+        Integer ord = ordinals.remove(key(type, id));
+        if (ord == null) {
+            return;
+        }
+        Document document = documents.get(ord);
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            Map<String, BitSet> fieldPostings = postings.get(field);
+            for (String trigram : trigrams(document.normalized[field])) {
+                BitSet docs = fieldPostings.get(trigram);
+                if (docs != null) {
+                    docs.clear(ord);
+                    if (docs.isEmpty()) {
+                        fieldPostings.remove(trigram);
+                    }
+                }
+            }
+        }
+        documents.set(ord, null);
+        freeOrdinals.add(ord);
+    }
+    
+    private static String key(String type, Integer id) {
+        return type + ":" + id;
+    }
+    
+    /**
+     * Lower-case, strip accents and collapse whitespace so accented and plain spellings index the same way
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.replace('\u0131', 'i').replace('\u0130', 'I'), Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+    }
+    
+    /**
+     * Trigrams of every word, padded so short words and word starts still produce trigrams
+     */
+    static Set<String> trigrams(String normalized) {
+        Set<String> result = new LinkedHashSet<>();
+        if (normalized.isEmpty()) {
+            return result;
+        }
+        for (String word : normalized.split(" ")) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                result.add(padded.substring(i, i + 3));
+            }
+        }
+        return result;
+    }
+    
+    private static class Document {
+        final String type;
+        final Integer id;
+        final String label;
+        final String[] fields;
+        final String[] normalized = new String[FIELD_COUNT];
+        final int[] trigramCounts = new int[FIELD_COUNT];
+        // Brand ID for model documents
+        final Integer parentId;
+        
+        Document(String type, Integer id, String label, String[] fields, Integer parentId) {
+            this.type = type;
+            this.id = id;
+            this.label = label;
+            this.fields = fields;
+            this.parentId = parentId;
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                normalized[field] = normalize(fields[field]);
+                trigramCounts[field] = trigrams(normalized[field]).size();
+            }
+        }
+    }
+}
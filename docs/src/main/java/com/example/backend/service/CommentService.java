@@ -0,0 +1,305 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.CommentRequest;
+import com.example.backend.dto.CursorPage;
+import com.example.backend.dto.CustomerSummary;
+import com.example.backend.dto.ModerationItem;
+import com.example.backend.dto.ModerationResult;
+import com.example.backend.dto.ProductSummary;
+import com.example.backend.model.Comment;
+import com.example.backend.repository.CommentRepository;
+import com.example.backend.repository.CustomerRepository;
+import com.example.backend.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Comment write paths and the moderation queue. Every change to what approved comments say about
+ * a product is applied to the product's rating totals in the same transaction. Bulk moderation
+ * works in chunks, each with one locking read, one set-based UPDATE or DELETE and one rating upsert.
+ */
+@Service
+public class CommentService {
+    
+    private static final Logger log = LoggerFactory.getLogger(CommentService.class);
+    
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_ITEMS = 100_000;
+    
+    private final CommentRepository commentRepository;
+    private final ProductRepository productRepository;
+    private final CustomerRepository customerRepository;
+    private final ProductRatingService productRatingService;
+    private final ProductService productService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    
+    @Autowired
+    public CommentService(CommentRepository commentRepository,
+                          ProductRepository productRepository,
+                          CustomerRepository customerRepository,
+                          ProductRatingService productRatingService,
+                          ProductService productService,
+                          JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager) {
+        this.commentRepository = commentRepository;
+        this.productRepository = productRepository;
+        this.customerRepository = customerRepository;
+        this.productRatingService = productRatingService;
+        this.productService = productService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Comments written without a date get the oldest comment date, so they keep their place at the
+     * front of the moderation queue and its keyset can encode and seek past them
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(comment_date) FROM comments", LocalDateTime.class);
+        int backfilled = jdbcTemplate.update("UPDATE comments SET comment_date = ? WHERE comment_date IS NULL",
+                Timestamp.valueOf(oldest == null ? LocalDateTime.now() : oldest));
+        if (backfilled > 0) {
+            log.info("Backfilled dates of {} comments", backfilled);
+        }
+    }
+    
+    /**
+     * Submit a comment, it counts towards the product rating once approved
+     * @param request Product, customer, comment text and rating
+     * @return ID of the new comment
+     */
+    @Transactional
+    public Integer addComment(CommentRequest request) {
+        validate(request.getCommentBody(), request.getRating());
+        if (request.getProductId() == null || !productRepository.existsById(request.getProductId())) {
+            throw new IllegalArgumentException("Product not found");
+        }
+        if (request.getUserId() == null || !customerRepository.existsById(request.getUserId())) {
+            throw new IllegalArgumentException("Customer not found");
+        }
+        
+        Comment comment = new Comment();
+        comment.setProduct(productRepository.getReferenceById(request.getProductId()));
+        comment.setCustomer(customerRepository.getReferenceById(request.getUserId()));
+        comment.setCommentBody(request.getCommentBody());
+        comment.setRating(request.getRating());
+        comment.setIsApproved(false);
+        return commentRepository.save(comment).getCommentId();
+    }
+    
+    /**
+     * Approve a comment
+     * @param commentId Comment ID
+     */
+    @Transactional
+    public void approveComment(Integer commentId) {
+        Object[] current = lock(commentId);
+        // Only the call that actually flips the flag counts the rating
+        int updated = jdbcTemplate.update(
+                "UPDATE comments SET is_approved = true WHERE comment_id = ? AND is_approved = false", commentId);
+        if (updated > 0) {
+            Map<Integer, int[]> deltas = new HashMap<>();
+            ProductRatingService.addDelta(deltas, (Integer) current[0], (Integer) current[1], 1);
+            productRatingService.apply(deltas);
+        }
+    }
+    
+    /**
+     * Edit the text and rating of a comment
+     * @param commentId Comment ID
+     * @param commentBody New comment text
+     * @param rating New rating
+     */
+    @Transactional
+    public void updateComment(Integer commentId, String commentBody, Integer rating) {
+        validate(commentBody, rating);
+        Object[] current = lock(commentId);
+        jdbcTemplate.update("UPDATE comments SET comment_body = ?, rating = ? WHERE comment_id = ?",
+                commentBody, rating, commentId);
+        
+        if ((Boolean) current[2] && !rating.equals(current[1])) {
+            Map<Integer, int[]> deltas = new HashMap<>();
+            ProductRatingService.addDelta(deltas, (Integer) current[0], (Integer) current[1], -1);
+            ProductRatingService.addDelta(deltas, (Integer) current[0], rating, 1);
+            productRatingService.apply(deltas);
+        }
+    }
+    
+    /**
+     * Remove a comment
+     * @param commentId Comment ID
+     */
+    @Transactional
+    public void removeComment(Integer commentId) {
+        Object[] current = lock(commentId);
+        jdbcTemplate.update("DELETE FROM comments WHERE comment_id = ?", commentId);
+        
+        if ((Boolean) current[2]) {
+            Map<Integer, int[]> deltas = new HashMap<>();
+            ProductRatingService.addDelta(deltas, (Integer) current[0], (Integer) current[1], -1);
+            productRatingService.apply(deltas);
+        }
+    }
+    
+    /**
+     * Get a page of comments waiting for moderation, oldest first
+     * @param cursor nextCursor of the previous page
+     * @param size Page size
+     * @return Page of comments with their product and customer
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ModerationItem> getModerationQueue(String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        List<Object[]> rows;
+        if (cursor == null) {
+            rows = commentRepository.findOldestUnapproved(KeysetCursor.withLookAhead(pageSize));
+        } else {
+            KeysetCursor<LocalDateTime> after = KeysetCursor.decode(cursor, LocalDateTime::parse);
+            rows = commentRepository.findUnapprovedAfter(after.value(), after.id(), KeysetCursor.withLookAhead(pageSize));
+        }
+        boolean hasMore = KeysetCursor.hasMore(rows, pageSize);
+        List<Object[]> comments = KeysetCursor.page(rows, pageSize);
+        if (comments.isEmpty()) {
+            return new CursorPage<>(List.of(), null, false);
+        }
+        
+        // One lookup for all products and one for all customers on the page
+        Map<Integer, ProductSummary> products = productService.getProductSummaries(comments.stream()
+                        .map(row -> (Integer) row[1])
+                        .distinct()
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(ProductSummary::getProductId, product -> product));
+        Map<Integer, CustomerSummary> customers = new HashMap<>();
+        for (Object[] row : customerRepository.findSummariesByUserIdIn(comments.stream()
+                .map(comment -> (Integer) comment[2])
+                .collect(Collectors.toSet()))) {
+            customers.put((Integer) row[0],
+                    new CustomerSummary((Integer) row[0], (String) row[1], (String) row[2], (String) row[3]));
+        }
+        
+        List<ModerationItem> items = comments.stream()
+                .map(row -> new ModerationItem((Integer) row[0], (String) row[3], (Integer) row[4],
+                        (LocalDateTime) row[5], products.get((Integer) row[1]), customers.get((Integer) row[2])))
+                .collect(Collectors.toList());
+        ModerationItem last = items.get(items.size() - 1);
+        String nextCursor = hasMore ? KeysetCursor.encode(last.getCommentDate(), last.getCommentId()) : null;
+        
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+    
+    /**
+     * Approve many comments waiting for moderation
+     * @param commentIds Comment IDs
+     * @return Counts and the comments that were not waiting for moderation
+     */
+    public ModerationResult approveComments(List<Integer> commentIds) {
+        return moderate(commentIds, true);
+    }
+    
+    /**
+     * Reject and delete many comments waiting for moderation
+     * @param commentIds Comment IDs
+     * @return Counts and the comments that were not waiting for moderation
+     */
+    public ModerationResult rejectComments(List<Integer> commentIds) {
+        return moderate(commentIds, false);
+    }
+    
+    private ModerationResult moderate(List<Integer> commentIds, boolean approve) {
+        if (commentIds == null || commentIds.isEmpty()) {
+            throw new IllegalArgumentException("No comments to moderate");
+        }
+        if (commentIds.size() > MAX_ITEMS) {
+            throw new IllegalArgumentException("At most " + MAX_ITEMS + " comments per request");
+        }
+        long start = System.currentTimeMillis();
+        ModerationResult result = new ModerationResult();
+        result.setRequested(commentIds.size());
+        
+        // Sorted so concurrent moderators lock comments in the same order
+        List<Integer> ids = new ArrayList<>(new TreeSet<>(commentIds.stream()
+                .filter(id -> id != null)
+                .collect(Collectors.toList())));
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            Set<Integer> processed = transaction.execute(status -> moderateChunk(chunk, approve));
+            result.setProcessed(result.getProcessed() + processed.size());
+            chunk.stream().filter(id -> !processed.contains(id)).forEach(result.getSkipped()::add);
+        }
+        
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        return result;
+    }
+    
+    private Set<Integer> moderateChunk(List<Integer> chunk, boolean approve) {
+        Map<Integer, int[]> deltas = new HashMap<>();
+        Set<Integer> pending = new HashSet<>();
+        jdbcTemplate.query(
+                "SELECT comment_id, product_id, rating FROM comments WHERE comment_id IN (" +
+                SqlPlaceholders.of(chunk.size()) + ") AND is_approved = false FOR UPDATE",
+                rs -> {
+                    pending.add(rs.getInt(1));
+                    ProductRatingService.addDelta(deltas, rs.getInt(2), rs.getInt(3), 1);
+                },
+                chunk.toArray());
+        if (pending.isEmpty()) {
+            return pending;
+        }
+        
+        String ids = SqlPlaceholders.of(pending.size());
+        if (approve) {
+            jdbcTemplate.update("UPDATE comments SET is_approved = true WHERE comment_id IN (" + ids + ")",
+                    pending.toArray());
+            // One rating upsert for the whole chunk, however many comments each product got
+            productRatingService.apply(deltas);
+        } else {
+            // Unapproved comments never counted towards a rating, so rejecting them changes none
+            jdbcTemplate.update("DELETE FROM comments WHERE comment_id IN (" + ids + ")", pending.toArray());
+        }
+        return pending;
+    }
+    
+    // Product ID, rating and approval of the comment, locked until the transaction ends
+    private Object[] lock(Integer commentId) {
+        List<Object[]> rows = jdbcTemplate.query(
+                "SELECT product_id, rating, is_approved FROM comments WHERE comment_id = ? FOR UPDATE",
+                (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getInt(2), rs.getBoolean(3)},
+                commentId);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Comment not found");
+        }
+        return rows.get(0);
+    }
+    
+    private static void validate(String commentBody, Integer rating) {
+        if (commentBody == null || commentBody.isBlank() || commentBody.length() > 500) {
+            throw new IllegalArgumentException("Comment must be between 1 and 500 characters");
+        }
+        if (rating == null || rating < 1 || rating > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,362 @@
+package com.example.backend.service;
+
+import com.example.backend.event.EntityChangeType;
+import com.example.backend.event.EntityChangedEvent;
+import com.example.backend.event.ExchangeRatesChangedEvent;
+import com.example.backend.model.Product;
+import com.example.backend.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prices of every active product converted into every known currency, held in memory so listings
+ * can sort and range-filter on local-currency prices.
+ * Converted prices are stored as cents in one column per currency. A price change updates one slot
+ * in each column, a rate change recomputes all columns in one parallel pass with the fixed-point
+ * batch conversion. Sorted orders are built per currency on first use after a change.
+ */
+@Service
+public class CurrencyPriceView {
+    
+    private static final Logger log = LoggerFactory.getLogger(CurrencyPriceView.class);
+    
+    private final ProductRepository productRepository;
+    private final CurrencyService currencyService;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Integer> slotByProduct = new HashMap<>();
+    private int[] productIds = new int[0];
+    private long[] baseCents = new long[0];
+    private boolean[] present = new boolean[0];
+    private int size;
+    private Map<String, long[]> columns = new HashMap<>();
+    private volatile boolean ready = false;
+    
+    // Product changes committed while a rebuild is reading, replayed on top of the loaded prices
+    private List<EntityChangedEvent<Product>> pendingDuringBuild;
+    
+    // Sorted orders by currency, dropped whenever a price or rate changes
+    private final ConcurrentHashMap<String, SortedColumn> sorted = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public CurrencyPriceView(ProductRepository productRepository,
+                             CurrencyService currencyService,
+                             PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.currencyService = currencyService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    /**
+     * Whether the view has been built
+     * @return True once the initial load has finished
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    /**
+     * Reload all active product prices and convert them into every currency
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringBuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        List<Object[]> rows = readOnlyTransaction.execute(status -> productRepository.findActivePricingRows());
+        
+        lock.writeLock().lock();
+        try {
+            slotByProduct.clear();
+            productIds = new int[rows.size()];
+            baseCents = new long[rows.size()];
+            present = new boolean[rows.size()];
+            size = 0;
+            for (Object[] row : rows) {
+                addSlot((Integer) row[0], FixedPointRates.toMinor((BigDecimal) row[1]));
+            }
+            recomputeColumns();
+            for (EntityChangedEvent<Product> event : pendingDuringBuild) {
+                apply(event);
+            }
+            pendingDuringBuild = null;
+            sorted.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Currency price view built for {} products", rows.size());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(EntityChangedEvent<Product> event) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringBuild != null) {
+                pendingDuringBuild.add(event);
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @EventListener
+    public void onExchangeRatesChanged(ExchangeRatesChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            recomputeColumns();
+            sorted.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Currency price view recomputed for rates version {}", event.getVersion());
+    }
+    
+    /**
+     * Get the products whose converted price lies in a range
+     * @param currencyCode Currency of the bounds
+     * @param minPrice Lower bound, inclusive, or null
+     * @param maxPrice Upper bound, inclusive, or null
+     * @return Product IDs inside the range
+     */
+    public BitSet priceRange(String currencyCode, BigDecimal minPrice, BigDecimal maxPrice) {
+        SortedColumn column = sortedColumn(currencyCode);
+        int from = minPrice == null ? 0
+                : column.lowerBound(minPrice.setScale(2, RoundingMode.CEILING).unscaledValue().longValueExact());
+        int to = maxPrice == null ? column.cents.length
+                : column.lowerBound(maxPrice.setScale(2, RoundingMode.FLOOR).unscaledValue().longValueExact() + 1);
+        
+        BitSet range = new BitSet();
+        for (int i = from; i < to; i++) {
+            range.set(column.productIds[i]);
+        }
+        return range;
+    }
+    
+    /**
+     * Order matching products by converted price, ties broken by product ID
+     * @param currencyCode Currency to sort by
+     * @param matches Products to include
+     * @param descending Highest price first
+     * @param after Converted cents and product ID of the last product of the previous page, or null
+     * @param limit Maximum number of IDs to return
+     * @return Product IDs of the page in price order with their converted cents
+     */
+    PricePage sortedPage(String currencyCode, BitSet matches, boolean descending, KeysetCursor<Long> after, int limit) {
+        SortedColumn column = sortedColumn(currencyCode);
+        int n = column.cents.length;
+        
+        // The cursor is a position in the (price, product ID) order, so it stays valid when the
+        // last product was repriced or removed since the previous page
+        int position = 0;
+        if (after != null) {
+            position = descending
+                    ? n - column.lowerBound(after.value(), after.id())
+                    : column.lowerBound(after.value(), after.id() + 1);
+        }
+        
+        PricePage page = new PricePage(limit);
+        for (int i = position; i < n && page.productIds.size() < limit; i++) {
+            int index = descending ? n - 1 - i : i;
+            if (matches.get(column.productIds[index])) {
+                page.productIds.add(column.productIds[index]);
+                page.cents.add(column.cents[index]);
+            }
+        }
+        return page;
+    }
+    
+    /**
+     * Get the converted price of a product
+     * @param currencyCode Currency code
+     * @param productId Product ID
+     * @return Converted price, or null if the product or currency is not in the view
+     */
+    public BigDecimal price(String currencyCode, Integer productId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotByProduct.get(productId);
+            long[] column = columns.get(currencyCode);
+            return slot == null || column == null ? null : FixedPointRates.fromMinor(column[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private SortedColumn sortedColumn(String currencyCode) {
+        SortedColumn column = sorted.get(currencyCode);
+        if (column != null) {
+            return column;
+        }
+        
+        lock.readLock().lock();
+        try {
+            long[] cents = columns.get(currencyCode);
+            if (cents == null) {
+                throw new IllegalArgumentException("Invalid currency code");
+            }
+            Integer[] slots = new Integer[slotByProduct.size()];
+            int count = 0;
+            for (int slot = 0; slot < size; slot++) {
+                if (present[slot]) {
+                    slots[count++] = slot;
+                }
+            }
+            Arrays.sort(slots, 0, count, Comparator.<Integer>comparingLong(slot -> cents[slot])
+                    .thenComparingInt(slot -> productIds[slot]));
+            
+            column = new SortedColumn(count);
+            for (int i = 0; i < count; i++) {
+                column.cents[i] = cents[slots[i]];
+                column.productIds[i] = productIds[slots[i]];
+            }
+            // Safe to cache while the read lock is held, changes clear the map under the write lock
+            sorted.put(currencyCode, column);
+            return column;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Callers hold the write lock. Applying the latest state of a product is idempotent, so a
+    // change that the rebuild already read is safe to replay.
+    private void apply(EntityChangedEvent<Product> event) {
+        Product product = event.getEntity();
+        boolean keep = event.getType() != EntityChangeType.DELETED && Boolean.TRUE.equals(product.getIsActive());
+        
+        Integer slot = slotByProduct.get(product.getProductId());
+        if (!keep) {
+            if (slot != null) {
+                present[slot] = false;
+                slotByProduct.remove(product.getProductId());
+            }
+        } else {
+            long cents = FixedPointRates.roundToMinor(product.getPrice());
+            if (slot == null) {
+                slot = addSlot(product.getProductId(), cents);
+                growColumns();
+            } else if (baseCents[slot] == cents) {
+                return;
+            }
+            baseCents[slot] = cents;
+            for (Map.Entry<String, long[]> column : columns.entrySet()) {
+                column.getValue()[slot] = currencyService.convertMinor(cents, column.getKey());
+            }
+        }
+        sorted.clear();
+    }
+    
+    private int addSlot(int productId, long cents) {
+        if (size == productIds.length) {
+            int capacity = Math.max(16, size * 2);
+            productIds = Arrays.copyOf(productIds, capacity);
+            baseCents = Arrays.copyOf(baseCents, capacity);
+            present = Arrays.copyOf(present, capacity);
+        }
+        int slot = size++;
+        productIds[slot] = productId;
+        baseCents[slot] = cents;
+        present[slot] = true;
+        slotByProduct.put(productId, slot);
+        return slot;
+    }
+    
+    private void growColumns() {
+        for (Map.Entry<String, long[]> column : columns.entrySet()) {
+            if (column.getValue().length < productIds.length) {
+                column.setValue(Arrays.copyOf(column.getValue(), productIds.length));
+            }
+        }
+    }
+    
+    private void recomputeColumns() {
+        long[] amounts = Arrays.copyOf(baseCents, size);
+        Map<String, long[]> recomputed = new ConcurrentHashMap<>();
+        // One batch conversion per currency, the currencies run in parallel
+        currencyService.getAvailableCurrencies().keySet().parallelStream().forEach(currencyCode -> {
+            long[] converted = Arrays.copyOf(currencyService.convert(amounts, currencyCode), productIds.length);
+            recomputed.put(currencyCode, converted);
+        });
+        columns = new HashMap<>(recomputed);
+    }
+    
+    /**
+     * Immutable price order of one currency
+     */
+    private static final class SortedColumn {
+        final long[] cents;
+        final int[] productIds;
+        
+        SortedColumn(int size) {
+            this.cents = new long[size];
+            this.productIds = new int[size];
+        }
+        
+        // First position whose price is at least the given cents
+        int lowerBound(long value) {
+            return lowerBound(value, Integer.MIN_VALUE);
+        }
+        
+        // First position at or after the given price and product ID
+        int lowerBound(long value, int productId) {
+            int low = 0;
+            int high = cents.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cents[middle] < value || (cents[middle] == value && productIds[middle] < productId)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+    
+    /**
+     * Product IDs of a price ordered page with the converted cents they were ordered by
+     */
+    static final class PricePage {
+        final List<Integer> productIds;
+        final List<Long> cents;
+        
+        PricePage(int limit) {
+            this.productIds = new ArrayList<>(limit);
+            this.cents = new ArrayList<>(limit);
+        }
+    }
+}
@@ -1,32 +1,152 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.ConversionBatchResult;
+import com.example.backend.dto.ConversionItem;
+import com.example.backend.dto.ConversionResult;
+import com.example.backend.event.ExchangeRatesChangedEvent;
+import com.example.backend.model.ExchangeRate;
+import com.example.backend.model.ExchangeRateHistory;
+import com.example.backend.model.ExchangeRateVersion;
+import com.example.backend.repository.ExchangeRateHistoryRepository;
+import com.example.backend.repository.ExchangeRateRepository;
+import com.example.backend.repository.ExchangeRateVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Exchange rates against the base currency.
+ * Rates live in the ExchangeRates table and are served from an immutable snapshot that is swapped
+ * in one volatile write, so conversions never lock. Every change bumps the single version row,
+ * and each node polls that row and reloads its snapshot when the version moves.
+ */
 @Service
 public class CurrencyService {
     
-    // Exchange rates map (currency code -> rate against base currency)
-    private Map<String, BigDecimal> exchangeRates;
+    private static final Logger log = LoggerFactory.getLogger(CurrencyService.class);
     
     // Base currency (all rates are against this currency)
     private final String baseCurrency = "USD";
     
-    public CurrencyService() {
-        initExchangeRates();
+    // Larger inputs should use the NDJSON stream
+    public static final int MAX_BATCH_SIZE = 10000;
+    
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final ExchangeRateHistoryRepository exchangeRateHistoryRepository;
+    private final ExchangeRateVersionRepository exchangeRateVersionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    // Serves the default rates until the table has been read
+    private volatile RateSnapshot snapshot = new RateSnapshot(0L, defaultRates(), LocalDateTime.now());
+    
+    @Autowired
+    public CurrencyService(ExchangeRateRepository exchangeRateRepository,
+                           ExchangeRateHistoryRepository exchangeRateHistoryRepository,
+                           ExchangeRateVersionRepository exchangeRateVersionRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager) {
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.exchangeRateHistoryRepository = exchangeRateHistoryRepository;
+        this.exchangeRateVersionRepository = exchangeRateVersionRepository;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
     
-    private void initExchangeRates() {
-        exchangeRates = new HashMap<>();
+    private static Map<String, BigDecimal> defaultRates() {
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
         // Default exchange rates (example values)
-        exchangeRates.put("USD", BigDecimal.ONE);
-        exchangeRates.put("EUR", new BigDecimal("0.92"));
-        exchangeRates.put("GBP", new BigDecimal("0.79"));
-        exchangeRates.put("TRY", new BigDecimal("32.5"));
-        exchangeRates.put("JPY", new BigDecimal("150.12"));
+        rates.put("USD", BigDecimal.ONE);
+        rates.put("EUR", new BigDecimal("0.92"));
+        rates.put("GBP", new BigDecimal("0.79"));
+        rates.put("TRY", new BigDecimal("32.5"));
+        rates.put("JPY", new BigDecimal("150.12"));
+        return rates;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            transaction.executeWithoutResult(status -> {
+                if (exchangeRateVersionRepository.existsById(ExchangeRateVersion.SINGLETON_ID)) {
+                    return;
+                }
+                // First start against an empty database, persist the default rates as version 1
+                LocalDateTime now = LocalDateTime.now();
+                exchangeRateVersionRepository.save(new ExchangeRateVersion(ExchangeRateVersion.SINGLETON_ID, 1L));
+                defaultRates().forEach((code, rate) -> {
+                    exchangeRateRepository.save(new ExchangeRate(code, rate, 1L, now));
+                    exchangeRateHistoryRepository.save(new ExchangeRateHistory(null, code, null, rate, 1L, now));
+                });
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node seeded the table at the same time
+            log.debug("Exchange rates were seeded by another node");
+        }
+        reload();
+    }
+    
+    /**
+     * Reload the snapshot when another node has changed the rates
+     */
+    @Scheduled(fixedDelayString = "${currency.rates.poll-interval-ms:5000}")
+    public void pollVersion() {
+        Long version = readOnlyTransaction.execute(status ->
+                exchangeRateVersionRepository.findVersion(ExchangeRateVersion.SINGLETON_ID).orElse(null));
+        if (version != null && version > snapshot.version) {
+            reload();
+        }
+    }
+    
+    /**
+     * Read the whole rate table and swap it in
+     */
+    public void reload() {
+        RateSnapshot loaded = readOnlyTransaction.execute(status -> {
+            Long version = exchangeRateVersionRepository.findVersion(ExchangeRateVersion.SINGLETON_ID).orElse(0L);
+            Map<String, BigDecimal> rates = new LinkedHashMap<>();
+            for (ExchangeRate rate : exchangeRateRepository.findAll()) {
+                rates.put(rate.getCurrencyCode(), rate.getRate());
+            }
+            return new RateSnapshot(version, rates, LocalDateTime.now());
+        });
+        if (loaded.rates.isEmpty()) {
+            return;
+        }
+        
+        // Never go back to an older version if a concurrent reload finished first
+        boolean changed;
+        synchronized (this) {
+            changed = loaded.version >= snapshot.version && !loaded.rates.equals(snapshot.rates);
+            if (loaded.version >= snapshot.version) {
+                snapshot = loaded;
+            }
+        }
+        log.info("Loaded exchange rates version {}", loaded.version);
+        if (changed) {
+            eventPublisher.publishEvent(new ExchangeRatesChangedEvent(loaded.version));
+        }
     }
     
     /**
@@ -41,18 +161,153 @@ public class CurrencyService {
         }
         
         // Get exchange rate for target currency
-        BigDecimal rate = exchangeRates.getOrDefault(targetCurrency, BigDecimal.ONE);
+        BigDecimal rate = snapshot.rates.getOrDefault(targetCurrency, BigDecimal.ONE);
         
         // Convert price
         return price.multiply(rate).setScale(2, RoundingMode.HALF_UP);
     }
     
+    /**
+     * Convert an amount held in base currency minor units (cents) to target currency minor units.
+     * Allocates nothing for rates with up to six decimals and rounds exactly like convertPrice.
+     * @param amountMinor Amount in base currency cents
+     * @param targetCurrency Target currency code
+     * @return Converted amount in target currency cents
+     */
+    public long convertMinor(long amountMinor, String targetCurrency) {
+        RateSnapshot current = snapshot;
+        if (current.fixed.supports(targetCurrency)) {
+            try {
+                return current.fixed.convert(amountMinor, targetCurrency);
+            } catch (ArithmeticException e) {
+                // Too large for a long product, use the exact path below
+            }
+        }
+        return convertSlow(current, amountMinor, targetCurrency);
+    }
+    
+    /**
+     * Convert many amounts held in base currency minor units with one rate lookup
+     * @param amountsMinor Amounts in base currency cents
+     * @param targetCurrency Target currency code
+     * @return Converted amounts in target currency cents, in the same order
+     */
+    public long[] convert(long[] amountsMinor, String targetCurrency) {
+        if (amountsMinor == null || targetCurrency == null) {
+            throw new IllegalArgumentException("Amounts and target currency cannot be null");
+        }
+        
+        return convert(snapshot, amountsMinor, targetCurrency);
+    }
+    
+    /**
+     * Convert a batch of base currency amounts, each to its own target currency.
+     * The whole batch is converted against one rate snapshot, one batch conversion per currency.
+     * Invalid items get an error in their result instead of failing the batch.
+     * @param items Amounts and target currencies
+     * @return Rates version used and one result per item, in the same order
+     */
+    public ConversionBatchResult convertBatch(List<ConversionItem> items) {
+        if (items == null) {
+            throw new IllegalArgumentException("Items cannot be null");
+        }
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch cannot exceed " + MAX_BATCH_SIZE + " items");
+        }
+        
+        RateSnapshot current = snapshot;
+        ConversionResult[] results = new ConversionResult[items.size()];
+        long[] amountsMinor = new long[items.size()];
+        Map<String, List<Integer>> indexesByCurrency = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            ConversionItem item = items.get(i);
+            String error = null;
+            if (item == null || item.getAmount() == null || item.getTargetCurrency() == null) {
+                error = "Amount and target currency cannot be null";
+            } else if (!current.rates.containsKey(item.getTargetCurrency())) {
+                error = "Invalid currency code";
+            } else {
+                try {
+                    amountsMinor[i] = FixedPointRates.toMinor(item.getAmount());
+                } catch (ArithmeticException e) {
+                    error = "Amount must have at most two decimals";
+                }
+            }
+            
+            if (error != null) {
+                results[i] = new ConversionResult(item == null ? null : item.getAmount(), null,
+                        item == null ? null : item.getTargetCurrency(), error);
+            } else {
+                indexesByCurrency.computeIfAbsent(item.getTargetCurrency(), code -> new ArrayList<>()).add(i);
+            }
+        }
+        
+        indexesByCurrency.forEach((currencyCode, indexes) -> {
+            long[] amounts = new long[indexes.size()];
+            for (int j = 0; j < amounts.length; j++) {
+                amounts[j] = amountsMinor[indexes.get(j)];
+            }
+            long[] converted = convert(current, amounts, currencyCode);
+            for (int j = 0; j < amounts.length; j++) {
+                int index = indexes.get(j);
+                results[index] = new ConversionResult(items.get(index).getAmount(),
+                        FixedPointRates.fromMinor(converted[j]), currencyCode, null);
+            }
+        });
+        
+        return new ConversionBatchResult(baseCurrency, current.version, Arrays.asList(results));
+    }
+    
+    private static long[] convert(RateSnapshot current, long[] amountsMinor, String targetCurrency) {
+        long[] converted = new long[amountsMinor.length];
+        if (current.fixed.supports(targetCurrency)) {
+            try {
+                current.fixed.convert(amountsMinor, targetCurrency, converted);
+                return converted;
+            } catch (ArithmeticException e) {
+                // At least one amount is too large, convert all of them on the exact path
+            }
+        }
+        for (int i = 0; i < amountsMinor.length; i++) {
+            converted[i] = convertSlow(current, amountsMinor[i], targetCurrency);
+        }
+        return converted;
+    }
+    
+    private static long convertSlow(RateSnapshot current, long amountMinor, String targetCurrency) {
+        BigDecimal rate = current.rates.getOrDefault(targetCurrency, BigDecimal.ONE);
+        return FixedPointRates.toMinor(FixedPointRates.fromMinor(amountMinor)
+                .multiply(rate)
+                .setScale(FixedPointRates.MINOR_SCALE, RoundingMode.HALF_UP));
+    }
+    
     /**
      * Get all available currencies
-     * @return Map of currency codes and their exchange rates
+     * @return Read-only map of currency codes and their exchange rates
      */
     public Map<String, BigDecimal> getAvailableCurrencies() {
-        return exchangeRates;
+        return snapshot.rates;
+    }
+    
+    /**
+     * Get the version of the rates this node is converting with
+     * @return Version and the time it was loaded
+     */
+    public Map<String, Object> getRatesVersion() {
+        RateSnapshot current = snapshot;
+        Map<String, Object> result = new HashMap<>();
+        result.put("version", current.version);
+        result.put("loadedAt", current.loadedAt);
+        return result;
+    }
+    
+    /**
+     * Get the rate history of a currency
+     * @param currencyCode Currency code
+     * @return Rate changes, newest first
+     */
+    public List<ExchangeRateHistory> getRateHistory(String currencyCode) {
+        return exchangeRateHistoryRepository.findByCurrencyCodeOrderByChangedAtDesc(currencyCode);
     }
     
     /**
@@ -65,7 +320,7 @@ public class CurrencyService {
             throw new IllegalArgumentException("Invalid currency code or exchange rate");
         }
         
-        exchangeRates.put(currencyCode, newRate);
+        writeRate(currencyCode, newRate, false);
     }
     
     /**
@@ -78,11 +333,7 @@ public class CurrencyService {
             throw new IllegalArgumentException("Invalid currency code or exchange rate");
         }
         
-        if (exchangeRates.containsKey(currencyCode)) {
-            throw new IllegalArgumentException("Currency already exists");
-        }
-        
-        exchangeRates.put(currencyCode, rate);
+        writeRate(currencyCode, rate, true);
     }
     
     /**
@@ -92,4 +343,43 @@ public class CurrencyService {
     public String getBaseCurrency() {
         return baseCurrency;
     }
+    
+    private void writeRate(String currencyCode, BigDecimal rate, boolean mustBeNew) {
+        transaction.executeWithoutResult(status -> {
+            // Locking the version row serializes rate changes across all nodes
+            ExchangeRateVersion version = exchangeRateVersionRepository.findForUpdate(ExchangeRateVersion.SINGLETON_ID)
+                    .orElseGet(() -> new ExchangeRateVersion(ExchangeRateVersion.SINGLETON_ID, 0L));
+            
+            ExchangeRate existing = exchangeRateRepository.findById(currencyCode).orElse(null);
+            if (existing != null && mustBeNew) {
+                throw new IllegalArgumentException("Currency already exists");
+            }
+            
+            long nextVersion = version.getVersion() + 1;
+            LocalDateTime now = LocalDateTime.now();
+            version.setVersion(nextVersion);
+            exchangeRateVersionRepository.save(version);
+            exchangeRateRepository.save(new ExchangeRate(currencyCode, rate, nextVersion, now));
+            exchangeRateHistoryRepository.save(new ExchangeRateHistory(
+                    null, currencyCode, existing == null ? null : existing.getRate(), rate, nextVersion, now));
+        });
+        reload();
+    }
+    
+    /**
+     * Immutable view of the rate table at one version
+     */
+    private static final class RateSnapshot {
+        final long version;
+        final Map<String, BigDecimal> rates;
+        final LocalDateTime loadedAt;
+        final FixedPointRates fixed;
+        
+        RateSnapshot(long version, Map<String, BigDecimal> rates, LocalDateTime loadedAt) {
+            this.version = version;
+            this.rates = Map.copyOf(rates);
+            this.loadedAt = loadedAt;
+            this.fixed = FixedPointRates.of(rates);
+        }
+    }
 } 
\ No newline at end of file
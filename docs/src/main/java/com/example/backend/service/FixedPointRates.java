@@ -0,0 +1,119 @@
+package com.example.backend.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exchange rates as scaled longs for converting amounts held in minor units (cents).
+ * A rate is stored multiplied by 10^6, so converting is one long multiply and a HALF_UP division,
+ * which gives exactly the result of price.multiply(rate).setScale(2, HALF_UP) on BigDecimals
+ * without allocating anything. Rates with more than six decimals are left out and converted
+ * through BigDecimal by the caller.
+ */
+final class FixedPointRates {
+    
+    static final int RATE_SCALE = 6;
+    static final long RATE_ONE = 1_000_000L;
+    static final int MINOR_SCALE = 2;
+    
+    private final Map<String, Rate> rates;
+    
+    private FixedPointRates(Map<String, Rate> rates) {
+        this.rates = rates;
+    }
+    
+    static FixedPointRates of(Map<String, BigDecimal> rates) {
+        Map<String, Rate> scaled = new HashMap<>();
+        rates.forEach((code, rate) -> {
+            BigDecimal stripped = rate.stripTrailingZeros();
+            if (stripped.scale() <= RATE_SCALE && stripped.precision() - stripped.scale() <= 12) {
+                long value = rate.movePointRight(RATE_SCALE).longValueExact();
+                scaled.put(code, new Rate(value));
+            }
+        });
+        return new FixedPointRates(scaled);
+    }
+    
+    /**
+     * Whether the currency can be converted on the fixed-point path
+     * @param currencyCode Currency code
+     * @return True when its rate fits in six decimals
+     */
+    boolean supports(String currencyCode) {
+        return rates.containsKey(currencyCode);
+    }
+    
+    /**
+     * Convert an amount in base currency minor units
+     * @param amountMinor Amount in cents
+     * @param currencyCode Supported currency code
+     * @return Converted amount in cents, rounded HALF_UP
+     * @throws ArithmeticException When the product does not fit in a long
+     */
+    long convert(long amountMinor, String currencyCode) {
+        Rate rate = rates.get(currencyCode);
+        return multiplyRounded(amountMinor, rate.scaled, rate.maxAmount);
+    }
+    
+    /**
+     * Convert many amounts with the same rate
+     * @param amountsMinor Amounts in cents
+     * @param currencyCode Supported currency code
+     * @param out Receives the converted amounts, may be the input array
+     */
+    void convert(long[] amountsMinor, String currencyCode, long[] out) {
+        Rate rate = rates.get(currencyCode);
+        for (int i = 0; i < amountsMinor.length; i++) {
+            out[i] = multiplyRounded(amountsMinor[i], rate.scaled, rate.maxAmount);
+        }
+    }
+    
+    static long multiplyRounded(long amount, long scaledRate, long maxAmount) {
+        if (amount > maxAmount || amount < -maxAmount) {
+            throw new ArithmeticException("Amount too large for fixed-point conversion");
+        }
+        long product = amount * scaledRate;
+        long quotient = product / RATE_ONE;
+        long remainder = product % RATE_ONE;
+        // HALF_UP rounds ties away from zero, like BigDecimal
+        if (Math.abs(remainder) * 2 >= RATE_ONE) {
+            quotient += product < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+    
+    /**
+     * Amount in minor units, for prices with at most two decimals
+     * @param amount Amount
+     * @return Amount in cents
+     */
+    static long toMinor(BigDecimal amount) {
+        return amount.setScale(MINOR_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+    
+    /**
+     * Amount in minor units, rounded HALF_UP the way the price column stores it
+     * @param amount Amount with any number of decimals, such as an entity price not yet reloaded
+     * @return Amount in cents
+     */
+    static long roundToMinor(BigDecimal amount) {
+        return amount.setScale(MINOR_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    static BigDecimal fromMinor(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, MINOR_SCALE);
+    }
+    
+    private static final class Rate {
+        final long scaled;
+        // Largest amount whose product with the rate still fits in a long
+        final long maxAmount;
+        
+        Rate(long scaled) {
+            this.scaled = scaled;
+            this.maxAmount = scaled == 0 ? Long.MAX_VALUE : Long.MAX_VALUE / scaled;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.backend.service;
+
+import com.example.backend.event.EntityChangeType;
+import com.example.backend.event.EntityChangedEvent;
+import com.example.backend.model.Brand;
+import com.example.backend.model.CarModel;
+import com.example.backend.repository.CarModelRepository;
+import com.example.backend.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Running stock totals per car model and per brand.
+ * Loaded once from a GROUP BY query, then adjusted by the product write paths after commit,
+ * so the inventory summary never has to touch the Products table.
+ */
+@Service
+public class InventoryCounters {
+    
+    private static final Logger log = LoggerFactory.getLogger(InventoryCounters.class);
+    
+    private static final int MAX_RECOUNT_ROUNDS = 5;
+    
+    private final ProductRepository productRepository;
+    private final CarModelRepository carModelRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    // LongAdder stripes its cells, so concurrent stock updates do not contend on one counter
+    private volatile ConcurrentHashMap<Integer, LongAdder> stockByModel = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<Integer, LongAdder> stockByBrand = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<Integer, CarModel> models = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+    
+    // Adjustments share the read lock, a rebuild takes the write lock only to swap in the new maps
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Models adjusted while a rebuild is running. Deltas cannot be replayed, since one that committed
+    // before the aggregate read is already part of it, so these models are counted again instead.
+    private Set<Integer> touchedDuringBuild;
+    
+    @Autowired
+    public InventoryCounters(ProductRepository productRepository,
+                             CarModelRepository carModelRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.carModelRepository = carModelRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    /**
+     * Whether the counters have been loaded
+     * @return True once the initial load has finished
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    /**
+     * Reload all counters with a single aggregate query, then count the models that were adjusted
+     * meanwhile again until a round passes without adjustments
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            touchedDuringBuild = ConcurrentHashMap.newKeySet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        ConcurrentHashMap<Integer, LongAdder> modelTotals = new ConcurrentHashMap<>();
+        ConcurrentHashMap<Integer, LongAdder> brandTotals = new ConcurrentHashMap<>();
+        ConcurrentHashMap<Integer, CarModel> loadedModels = new ConcurrentHashMap<>();
+        
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (CarModel model : carModelRepository.findAll()) {
+                loadedModels.put(model.getModelId(), model);
+            }
+            for (Object[] row : productRepository.sumActiveStockByModel()) {
+                Integer modelId = (Integer) row[0];
+                long total = row[1] == null ? 0 : ((Number) row[1]).longValue();
+                counter(modelTotals, modelId).add(total);
+                CarModel model = loadedModels.get(modelId);
+                if (model != null) {
+                    counter(brandTotals, model.getBrand().getBrandId()).add(total);
+                }
+            }
+        });
+        
+        Set<Integer> touched;
+        lock.writeLock().lock();
+        try {
+            touched = touchedDuringBuild;
+            touchedDuringBuild = ConcurrentHashMap.newKeySet();
+            models = loadedModels;
+            stockByModel = modelTotals;
+            stockByBrand = brandTotals;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Inventory counters loaded for {} models", loadedModels.size());
+        
+        for (int round = 0; !touched.isEmpty() && round < MAX_RECOUNT_ROUNDS; round++) {
+            Set<Integer> modelIds = touched;
+            Map<Integer, Long> recounted = new HashMap<>();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                for (Object[] row : productRepository.sumActiveStockByModelIn(modelIds)) {
+                    recounted.put((Integer) row[0], row[1] == null ? 0 : ((Number) row[1]).longValue());
+                }
+            });
+            
+            lock.writeLock().lock();
+            try {
+                for (Integer modelId : modelIds) {
+                    add(stockByModel, stockByBrand, models, modelId,
+                            recounted.getOrDefault(modelId, 0L) - counter(stockByModel, modelId).sum());
+                }
+                touched = touchedDuringBuild;
+                touchedDuringBuild = ConcurrentHashMap.newKeySet();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        lock.writeLock().lock();
+        try {
+            if (!touched.isEmpty()) {
+                log.warn("Stock of {} models kept changing during the inventory rebuild, their totals may be off",
+                        touched.size());
+            }
+            touchedDuringBuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Adjust the stock total of a model once the current transaction commits
+     * @param modelId Car model ID
+     * @param delta Stock change
+     */
+    public void adjust(Integer modelId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(modelId, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(modelId, delta);
+            }
+        });
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarModelChanged(EntityChangedEvent<CarModel> event) {
+        CarModel model = event.getEntity();
+        if (event.getType() == EntityChangeType.DELETED) {
+            models.remove(model.getModelId());
+            return;
+        }
+        CarModel previous = models.put(model.getModelId(), model);
+        if (previous != null && !previous.getBrand().getBrandId().equals(model.getBrand().getBrandId())) {
+            // The model's stock moves to its new brand
+            long total = counter(stockByModel, model.getModelId()).sum();
+            counter(stockByBrand, previous.getBrand().getBrandId()).add(-total);
+            counter(stockByBrand, model.getBrand().getBrandId()).add(total);
+        }
+    }
+    
+    /**
+     * Get the total stock of every active car model
+     * @return Map of car model to total stock
+     */
+    public Map<CarModel, Integer> getModelTotals() {
+        Map<CarModel, Integer> totals = new HashMap<>();
+        for (CarModel model : models.values()) {
+            if (Boolean.TRUE.equals(model.getIsActive())) {
+                LongAdder total = stockByModel.get(model.getModelId());
+                totals.put(model, total == null ? 0 : (int) total.sum());
+            }
+        }
+        return totals;
+    }
+    
+    /**
+     * Get the total stock of every brand
+     * @return Map of brand to total stock
+     */
+    public Map<Brand, Long> getBrandTotals() {
+        Map<Integer, Brand> brands = new HashMap<>();
+        for (CarModel model : models.values()) {
+            brands.putIfAbsent(model.getBrand().getBrandId(), model.getBrand());
+        }
+        Map<Brand, Long> totals = new HashMap<>();
+        for (Brand brand : brands.values()) {
+            LongAdder total = stockByBrand.get(brand.getBrandId());
+            totals.put(brand, total == null ? 0L : total.sum());
+        }
+        return totals;
+    }
+    
+    private void apply(Integer modelId, long delta) {
+        lock.readLock().lock();
+        try {
+            if (touchedDuringBuild != null) {
+                touchedDuringBuild.add(modelId);
+            }
+            add(stockByModel, stockByBrand, models, modelId, delta);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private static void add(Map<Integer, LongAdder> modelTotals, Map<Integer, LongAdder> brandTotals,
+                            Map<Integer, CarModel> models, Integer modelId, long delta) {
+        counter(modelTotals, modelId).add(delta);
+        CarModel model = models.get(modelId);
+        if (model != null) {
+            counter(brandTotals, model.getBrand().getBrandId()).add(delta);
+        }
+    }
+    
+    private static LongAdder counter(Map<Integer, LongAdder> counters, Integer id) {
+        return counters.computeIfAbsent(id, k -> new LongAdder());
+    }
+}
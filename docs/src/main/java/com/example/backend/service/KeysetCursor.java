@@ -0,0 +1,61 @@
+package com.example.backend.service;
+
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cursor of a page ordered by a sort value with the row ID as tie-breaker, handed to clients as
+ * "sortValue_id". Pages are read with one row more than their size, so whether another page
+ * exists is known without counting.
+ */
+final class KeysetCursor<T> {
+    
+    private final T value;
+    private final int id;
+    
+    private KeysetCursor(T value, int id) {
+        this.value = value;
+        this.id = id;
+    }
+    
+    static String encode(Object value, Integer id) {
+        return value + "_" + id;
+    }
+    
+    static <T> KeysetCursor<T> decode(String cursor, Function<String, T> parseValue) {
+        int separator = cursor.lastIndexOf('_');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            return new KeysetCursor<>(parseValue.apply(cursor.substring(0, separator)),
+                    Integer.parseInt(cursor.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+    
+    // The page plus one look-ahead row
+    static PageRequest withLookAhead(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
+    }
+    
+    static boolean hasMore(List<?> rows, int pageSize) {
+        return rows.size() > pageSize;
+    }
+    
+    // The rows without the look-ahead row
+    static <R> List<R> page(List<R> rows, int pageSize) {
+        return rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+    }
+    
+    T value() {
+        return value;
+    }
+    
+    int id() {
+        return id;
+    }
+}
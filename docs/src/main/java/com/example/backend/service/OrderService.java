@@ -0,0 +1,513 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.CursorPage;
+import com.example.backend.dto.OrderHistoryEntry;
+import com.example.backend.dto.OrderHistoryItem;
+import com.example.backend.dto.OrderLine;
+import com.example.backend.dto.OrderLineResult;
+import com.example.backend.dto.OrderResult;
+import com.example.backend.dto.PlaceOrderRequest;
+import com.example.backend.dto.ProductSummary;
+import com.example.backend.event.EntityChangedEvent;
+import com.example.backend.event.OrderStatusChangedEvent;
+import com.example.backend.model.OrderDetail;
+import com.example.backend.model.OrderItem;
+import com.example.backend.model.OrderItemStatus;
+import com.example.backend.model.OrderStatus;
+import com.example.backend.model.Product;
+import com.example.backend.repository.OrderDetailRepository;
+import com.example.backend.repository.OrderItemRepository;
+import com.example.backend.repository.OrderItemStatusRepository;
+import com.example.backend.repository.OrderStatusRepository;
+import com.example.backend.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Order placement for checkout.
+ * An order is written in one short transaction: one locking read of the ordered products in
+ * primary key order, one set-based stock decrement, one order insert and one batched item insert.
+ * Totals are computed from the catalog prices read under the lock, never taken from the client.
+ * Retries with the same idempotency key wait for or replay the first attempt instead of creating
+ * a second order; a unique key on (userId, idempotencyKey) covers retries that reach another node.
+ */
+@Service
+public class OrderService {
+    
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
+    
+    public static final String PENDING = "Pending";
+    
+    private static final int MAX_LINES = 100;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders_details (transaction_date, user_id, status_id, total_amount, idempotency_key, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO orders_items (order_id, product_id, quantity, unit_price, total_price, item_status_id, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final OrderDetailRepository orderDetailRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderStatusRepository orderStatusRepository;
+    private final OrderItemStatusRepository orderItemStatusRepository;
+    private final CurrencyService currencyService;
+    private final InventoryCounters inventoryCounters;
+    private final StockReservationService stockReservationService;
+    private final StockMovementService stockMovementService;
+    private final ProductBuyerIndex productBuyerIndex;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Duration idempotencyTtl;
+    
+    // Recent checkouts by user and idempotency key, completed once the first attempt finishes
+    private final ConcurrentHashMap<String, IdempotentCall> idempotentCalls = new ConcurrentHashMap<>();
+    
+    private volatile Integer pendingStatusId;
+    private volatile Integer pendingItemStatusId;
+    
+    @Autowired
+    public OrderService(ProductRepository productRepository,
+                        ProductService productService,
+                        OrderDetailRepository orderDetailRepository,
+                        OrderItemRepository orderItemRepository,
+                        OrderStatusRepository orderStatusRepository,
+                        OrderItemStatusRepository orderItemStatusRepository,
+                        CurrencyService currencyService,
+                        InventoryCounters inventoryCounters,
+                        StockReservationService stockReservationService,
+                        StockMovementService stockMovementService,
+                        ProductBuyerIndex productBuyerIndex,
+                        ReferenceDataRegistry referenceDataRegistry,
+                        OutboxService outboxService,
+                        ApplicationEventPublisher eventPublisher,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${order.idempotency.ttl-seconds:3600}") long idempotencyTtlSeconds) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.orderDetailRepository = orderDetailRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.orderStatusRepository = orderStatusRepository;
+        this.orderItemStatusRepository = orderItemStatusRepository;
+        this.currencyService = currencyService;
+        this.inventoryCounters = inventoryCounters;
+        this.stockReservationService = stockReservationService;
+        this.stockMovementService = stockMovementService;
+        this.productBuyerIndex = productBuyerIndex;
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.outboxService = outboxService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.idempotencyTtl = Duration.ofSeconds(idempotencyTtlSeconds);
+    }
+    
+    /**
+     * New orders and their items start out pending, make sure both statuses exist.
+     * Orders written without a transaction date fall back to their creation time, otherwise the
+     * order history keyset could neither encode nor seek past them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        int backfilled = jdbcTemplate.update("UPDATE orders_details " +
+                "SET transaction_date = COALESCE(created_at, updated_at, CURRENT_TIMESTAMP) " +
+                "WHERE transaction_date IS NULL");
+        if (backfilled > 0) {
+            log.info("Backfilled transaction dates of {} orders", backfilled);
+        }
+        pendingStatusId = transaction.execute(status -> orderStatusRepository.findByStatusName(PENDING)
+                .orElseGet(() -> orderStatusRepository.save(new OrderStatus(null, PENDING, "Order placed")))
+                .getStatusId());
+        pendingItemStatusId = transaction.execute(status -> orderItemStatusRepository.findByStatusName(PENDING)
+                .orElseGet(() -> orderItemStatusRepository.save(new OrderItemStatus(null, PENDING, "Item ordered")))
+                .getStatusId());
+    }
+    
+    /**
+     * Place an order
+     * @param request Customer and ordered products with quantities
+     * @param idempotencyKey Client key identifying this checkout, or null
+     * @return Created order, or the order already created for the idempotency key
+     */
+    public OrderResult placeOrder(PlaceOrderRequest request, String idempotencyKey) {
+        Map<Integer, Integer> quantities = validate(request);
+        Integer userId = request.getUserId();
+        if (idempotencyKey == null) {
+            return createOrder(userId, quantities, null);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        
+        String cacheKey = userId + ":" + idempotencyKey;
+        IdempotentCall call = new IdempotentCall(quantities.toString(), Instant.now().plus(idempotencyTtl));
+        IdempotentCall existing = idempotentCalls.putIfAbsent(cacheKey, call);
+        if (existing != null) {
+            if (!existing.fingerprint.equals(call.fingerprint)) {
+                throw new IllegalArgumentException("Idempotency key was already used for a different order");
+            }
+            try {
+                // Waits while the first attempt is still running
+                return existing.result.join().toBuilder().replayed(true).build();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        
+        try {
+            OrderResult result;
+            try {
+                // The first attempt may have reached another node or happened before a restart
+                result = findByIdempotencyKey(userId, idempotencyKey)
+                        .orElseGet(() -> createOrder(userId, quantities, idempotencyKey));
+            } catch (DataIntegrityViolationException e) {
+                // Another node inserted the same key between our lookup and insert
+                log.debug("Order for idempotency key {} was created concurrently", idempotencyKey);
+                result = findByIdempotencyKey(userId, idempotencyKey).orElseThrow(() -> e);
+            }
+            call.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            // A failed attempt is not remembered, so the client can retry it with the same key,
+            // and callers already waiting on it get the same failure instead of blocking
+            idempotentCalls.remove(cacheKey, call);
+            call.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Get a customer's orders, newest first, with their items and products
+     * @param userId Customer user ID
+     * @param cursor nextCursor of the previous page, null for the first page
+     * @param size Page size
+     * @return Page of orders in three queries: orders, their items, and the products not cached
+     */
+    public CursorPage<OrderHistoryEntry> getOrderHistory(Integer userId, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        KeysetCursor<LocalDateTime> before = cursor == null ? null : KeysetCursor.decode(cursor, LocalDateTime::parse);
+        
+        return transaction.execute(status -> {
+            List<Object[]> rows = before == null
+                    ? orderDetailRepository.findLatestOrders(userId, KeysetCursor.withLookAhead(pageSize))
+                    : orderDetailRepository.findOrdersBefore(userId, before.value(), before.id(),
+                            KeysetCursor.withLookAhead(pageSize));
+            boolean hasMore = KeysetCursor.hasMore(rows, pageSize);
+            List<Object[]> orders = KeysetCursor.page(rows, pageSize);
+            if (orders.isEmpty()) {
+                return new CursorPage<OrderHistoryEntry>(List.of(), null, false);
+            }
+            
+            List<Integer> orderIds = orders.stream().map(row -> (Integer) row[0]).collect(Collectors.toList());
+            List<Object[]> lines = orderItemRepository.findLinesByOrderIdIn(orderIds);
+            Map<Integer, ProductSummary> products = productService.getProductSummaries(lines.stream()
+                            .map(line -> (Integer) line[2])
+                            .distinct()
+                            .collect(Collectors.toList())).stream()
+                    .collect(Collectors.toMap(ProductSummary::getProductId, product -> product));
+            
+            Map<Integer, List<OrderHistoryItem>> itemsByOrder = new HashMap<>();
+            for (Object[] line : lines) {
+                itemsByOrder.computeIfAbsent((Integer) line[0], id -> new ArrayList<>()).add(new OrderHistoryItem(
+                        (Integer) line[1], (Integer) line[3], (BigDecimal) line[4], (BigDecimal) line[5],
+                        (String) line[6], products.get((Integer) line[2])));
+            }
+            
+            String currencyCode = currencyService.getBaseCurrency();
+            List<OrderHistoryEntry> items = orders.stream()
+                    .map(row -> new OrderHistoryEntry((Integer) row[0], (LocalDateTime) row[1], (String) row[2],
+                            (BigDecimal) row[3], currencyCode, itemsByOrder.getOrDefault((Integer) row[0], List.of())))
+                    .collect(Collectors.toList());
+            OrderHistoryEntry last = items.get(items.size() - 1);
+            String nextCursor = hasMore ? KeysetCursor.encode(last.getTransactionDate(), last.getOrderId()) : null;
+            
+            return new CursorPage<>(items, nextCursor, hasMore);
+        });
+    }
+    
+    /**
+     * Change the status of an order
+     * @param orderId Order ID
+     * @param statusName Name of the new order status
+     */
+    public void updateOrderStatus(Integer orderId, String statusName) {
+        OrderStatus status = referenceDataRegistry.orderStatuses().findByName(statusName)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown order status"));
+        
+        transaction.executeWithoutResult(tx -> {
+            OrderDetail order = orderDetailRepository.findById(orderId)
+                    .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+            order.setStatus(status);
+            orderDetailRepository.save(order);
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getCustomer().getUserId(), orderId, null,
+                    status.getStatusName(), LocalDateTime.now()));
+        });
+    }
+    
+    /**
+     * Change the status of a single order item
+     * @param orderItemId Order item ID
+     * @param statusName Name of the new item status
+     */
+    public void updateItemStatus(Integer orderItemId, String statusName) {
+        OrderItemStatus status = referenceDataRegistry.orderItemStatuses().findByName(statusName)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown order item status"));
+        
+        transaction.executeWithoutResult(tx -> {
+            OrderItem item = orderItemRepository.findById(orderItemId)
+                    .orElseThrow(() -> new IllegalArgumentException("Order item not found"));
+            item.setItemStatus(status);
+            orderItemRepository.save(item);
+            OrderDetail order = item.getOrder();
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getCustomer().getUserId(), order.getOrderId(),
+                    orderItemId, status.getStatusName(), LocalDateTime.now()));
+        });
+    }
+    
+    @Scheduled(fixedDelayString = "${order.idempotency.sweep-interval-ms:60000}")
+    public void expireIdempotencyKeys() {
+        Instant now = Instant.now();
+        idempotentCalls.entrySet().removeIf(entry ->
+                entry.getValue().result.isDone() && entry.getValue().expiresAt.isBefore(now));
+    }
+    
+    private Map<Integer, Integer> validate(PlaceOrderRequest request) {
+        if (request == null || request.getUserId() == null) {
+            throw new IllegalArgumentException("User ID is required");
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Order has no items");
+        }
+        if (request.getItems().size() > MAX_LINES) {
+            throw new IllegalArgumentException("At most " + MAX_LINES + " items per order");
+        }
+        
+        // Sorted by product ID, which is also the order the rows are locked in
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        for (OrderLine line : request.getItems()) {
+            if (line == null || line.getProductId() == null) {
+                throw new IllegalArgumentException("Missing productId");
+            }
+            if (line.getQuantity() == null || line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+    
+    private OrderResult createOrder(Integer userId, Map<Integer, Integer> quantities, String idempotencyKey) {
+        if (pendingStatusId == null) {
+            throw new IllegalStateException("Order statuses are not loaded yet");
+        }
+        
+        return transaction.execute(status -> {
+            List<Integer> customer = jdbcTemplate.queryForList(
+                    "SELECT user_id FROM customers WHERE user_id = ? AND is_active = true", Integer.class, userId);
+            if (customer.isEmpty()) {
+                throw new IllegalArgumentException("Customer not found");
+            }
+            
+            List<Integer> productIds = new ArrayList<>(quantities.keySet());
+            Map<Integer, Object[]> current = new HashMap<>();
+            jdbcTemplate.query(
+                    "SELECT product_id, price, stock, model_id, is_active FROM products WHERE product_id IN (" +
+                    SqlPlaceholders.of(productIds.size()) + ") ORDER BY product_id FOR UPDATE",
+                    rs -> {
+                        current.put(rs.getInt(1), new Object[]{
+                                rs.getBigDecimal(2), rs.getInt(3), rs.getInt(4), rs.getBoolean(5)});
+                    },
+                    productIds.toArray());
+            
+            List<OrderLineResult> lines = new ArrayList<>(productIds.size());
+            BigDecimal totalAmount = BigDecimal.ZERO;
+            for (Integer productId : productIds) {
+                Object[] row = current.get(productId);
+                int quantity = quantities.get(productId);
+                if (row == null || !(Boolean) row[3]) {
+                    throw new IllegalArgumentException("Product " + productId + " is not available");
+                }
+                if ((Integer) row[1] < quantity) {
+                    throw new IllegalArgumentException("Insufficient stock for product " + productId);
+                }
+                BigDecimal unitPrice = (BigDecimal) row[0];
+                BigDecimal lineTotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+                totalAmount = totalAmount.add(lineTotal);
+                lines.add(new OrderLineResult(null, productId, quantity, unitPrice, lineTotal, PENDING));
+            }
+            
+            // Raw stock still includes open holds and confirmed reservations that are not flushed yet,
+            // so the sale has to come out of the reservation ledger as well
+            stockReservationService.takeForSale(quantities);
+            
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp timestamp = Timestamp.valueOf(now);
+            decrementStock(quantities, timestamp);
+            Integer orderId = insertOrder(userId, totalAmount, idempotencyKey, timestamp);
+            insertItems(orderId, lines, timestamp);
+            
+            for (Integer productId : productIds) {
+                int quantity = quantities.get(productId);
+                stockMovementService.record(productId, -quantity, StockMovementService.SALE);
+                inventoryCounters.adjust((Integer) current.get(productId)[2], -quantity);
+            }
+            productBuyerIndex.recordPurchase(userId, productIds);
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(userId, orderId, null, PENDING, now));
+            outboxService.publish(OutboxService.ORDER_PLACED, orderId, Map.of(
+                    "orderId", orderId,
+                    "userId", userId,
+                    "totalAmount", totalAmount,
+                    "currencyCode", currencyService.getBaseCurrency()));
+            
+            // Caches, indexes and counters are kept current by the same events JPA writes produce
+            for (Product product : productRepository.findWithDetailsByProductIdIn(productIds)) {
+                eventPublisher.publishEvent(EntityChangedEvent.updated(product));
+            }
+            
+            return OrderResult.builder()
+                    .orderId(orderId)
+                    .userId(userId)
+                    .status(PENDING)
+                    .totalAmount(totalAmount)
+                    .currencyCode(currencyService.getBaseCurrency())
+                    .transactionDate(now)
+                    .items(lines)
+                    .build();
+        });
+    }
+    
+    private void decrementStock(Map<Integer, Integer> quantities, Timestamp now) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("UPDATE products SET stock = stock - CASE product_id");
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            sql.append(" WHEN ? THEN ?");
+            args.add(entry.getKey());
+            args.add(entry.getValue());
+        }
+        sql.append(" END, updated_at = ? WHERE product_id IN (").append(SqlPlaceholders.of(quantities.size())).append(")");
+        args.add(now);
+        args.addAll(quantities.keySet());
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+    
+    private Integer insertOrder(Integer userId, BigDecimal totalAmount, String idempotencyKey, Timestamp now) {
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ORDER_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                statement.setTimestamp(1, now);
+                statement.setInt(2, userId);
+                statement.setInt(3, pendingStatusId);
+                statement.setBigDecimal(4, totalAmount);
+                statement.setString(5, idempotencyKey);
+                statement.setTimestamp(6, now);
+                statement.setTimestamp(7, now);
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    keys.next();
+                    return keys.getInt(1);
+                }
+            }
+        });
+    }
+    
+    private void insertItems(Integer orderId, List<OrderLineResult> lines, Timestamp now) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ITEM_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (OrderLineResult line : lines) {
+                    statement.setInt(1, orderId);
+                    statement.setInt(2, line.getProductId());
+                    statement.setInt(3, line.getQuantity());
+                    statement.setBigDecimal(4, line.getUnitPrice());
+                    statement.setBigDecimal(5, line.getTotalPrice());
+                    statement.setInt(6, pendingItemStatusId);
+                    statement.setTimestamp(7, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                
+                // The driver sends the batch as one multi-row INSERT and still returns every generated key
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (OrderLineResult line : lines) {
+                        keys.next();
+                        line.setOrderItemId(keys.getInt(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+    
+    private Optional<OrderResult> findByIdempotencyKey(Integer userId, String idempotencyKey) {
+        return transaction.execute(status -> orderDetailRepository.findByIdempotencyKey(userId, idempotencyKey)
+                .map(order -> toResult(order, userId).toBuilder().replayed(true).build()));
+    }
+    
+    private OrderResult toResult(OrderDetail order, Integer userId) {
+        List<OrderLineResult> lines = orderItemRepository
+                .findLinesByOrderIdIn(Collections.singletonList(order.getOrderId())).stream()
+                .map(row -> new OrderLineResult((Integer) row[1], (Integer) row[2], (Integer) row[3],
+                        (BigDecimal) row[4], (BigDecimal) row[5], (String) row[6]))
+                .collect(Collectors.toList());
+        return OrderResult.builder()
+                .orderId(order.getOrderId())
+                .userId(userId)
+                .status(order.getStatus().getStatusName())
+                .totalAmount(order.getTotalAmount())
+                .currencyCode(currencyService.getBaseCurrency())
+                .transactionDate(order.getTransactionDate())
+                .items(lines)
+                .build();
+    }
+    
+    private static final class IdempotentCall {
+        // Normalized order lines, a retry must ask for the same products and quantities
+        final String fingerprint;
+        final Instant expiresAt;
+        final CompletableFuture<OrderResult> result = new CompletableFuture<>();
+        
+        IdempotentCall(String fingerprint, Instant expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.backend.service;
+
+import com.example.backend.event.OrderStatusChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes committed order and order item status changes to the customer's open server-sent event streams.
+ * Streams are async requests, so an idle stream holds a socket but no request thread. Events are
+ * written by a few sender threads, striped by user so each customer sees their events in order and
+ * a slow client only delays the users sharing its stripe. Each stripe queues a bounded number of
+ * sends; when a stripe is that far behind, the streams of a user whose event does not fit are
+ * closed, so the client reconnects and reloads instead of silently missing events.
+ */
+@Service
+public class OrderStatusStream {
+    
+    private static final Logger log = LoggerFactory.getLogger(OrderStatusStream.class);
+    
+    private static final String EVENT_NAME = "order-status";
+    
+    private final ConcurrentHashMap<Integer, Set<SseEmitter>> emittersByUser = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor[] senders;
+    private final long timeoutMs;
+    private final AtomicLong eventIds = new AtomicLong();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    
+    public OrderStatusStream(@Value("${order.events.timeout-ms:1800000}") long timeoutMs,
+                             @Value("${order.events.sender-threads:4}") int senderThreads,
+                             @Value("${order.events.sender-queue-capacity:1000}") int queueCapacity) {
+        this.timeoutMs = timeoutMs;
+        this.senders = new ThreadPoolExecutor[Math.max(1, senderThreads)];
+        for (int i = 0; i < senders.length; i++) {
+            int stripe = i;
+            senders[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                        Thread thread = new Thread(runnable, "order-events-" + stripe);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+    
+    /**
+     * Open a stream of a customer's order status changes
+     * @param userId Customer user ID
+     * @return Emitter that stays open until the timeout or the client disconnects
+     */
+    public SseEmitter subscribe(Integer userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        // Added inside compute so removeEmitter cannot drop the set between its lookup and the add
+        emittersByUser.compute(userId, (id, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            set.add(emitter);
+            return set;
+        });
+        
+        Runnable remove = () -> removeEmitter(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        return emitter;
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (!emittersByUser.containsKey(event.getUserId())) {
+            return;
+        }
+        long eventId = eventIds.incrementAndGet();
+        submit(event.getUserId(), () -> {
+            Set<SseEmitter> emitters = emittersByUser.get(event.getUserId());
+            if (emitters == null) {
+                return;
+            }
+            for (SseEmitter emitter : emitters) {
+                send(event.getUserId(), emitter, SseEmitter.event()
+                        .id(Long.toString(eventId))
+                        .name(EVENT_NAME)
+                        .data(event, MediaType.APPLICATION_JSON));
+            }
+        });
+    }
+    
+    /**
+     * Comment lines keep proxies from closing idle streams and reveal clients that went away
+     */
+    @Scheduled(fixedDelayString = "${order.events.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (int i = 0; i < senders.length; i++) {
+            // A stripe with queued sends is writing to its streams anyway, pinging it would only pile up
+            if (!senders[i].getQueue().isEmpty()) {
+                continue;
+            }
+            int stripe = i;
+            try {
+                senders[i].execute(() -> emittersByUser.forEach((userId, emitters) -> {
+                    if (Math.floorMod(userId, senders.length) != stripe) {
+                        return;
+                    }
+                    for (SseEmitter emitter : emitters) {
+                        send(userId, emitter, SseEmitter.event().comment("ping"));
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // Filled up since the check, the next heartbeat tries again
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        emittersByUser.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        for (ThreadPoolExecutor sender : senders) {
+            sender.shutdownNow();
+        }
+    }
+    
+    /**
+     * Get stream metrics
+     * @return Open streams, connected customers, sent and dropped events and queued sends
+     */
+    public Map<String, Object> getStats() {
+        int streams = 0;
+        for (Set<SseEmitter> emitters : emittersByUser.values()) {
+            streams += emitters.size();
+        }
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("openStreams", streams);
+        stats.put("connectedCustomers", emittersByUser.size());
+        stats.put("sentEvents", sent.sum());
+        stats.put("droppedStreams", dropped.sum());
+        int queued = 0;
+        for (ThreadPoolExecutor sender : senders) {
+            queued += sender.getQueue().size();
+        }
+        stats.put("queuedSends", queued);
+        return stats;
+    }
+    
+    private void send(Integer userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            sent.increment();
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the emitter already completed
+            removeEmitter(userId, emitter);
+            dropped.increment();
+            log.debug("Dropped order event stream of customer {}", userId);
+        }
+    }
+    
+    private void removeEmitter(Integer userId, SseEmitter emitter) {
+        emittersByUser.computeIfPresent(userId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+    
+    private void submit(Integer userId, Runnable task) {
+        try {
+            sender(userId).execute(task);
+        } catch (RejectedExecutionException e) {
+            Set<SseEmitter> emitters = emittersByUser.remove(userId);
+            if (emitters != null) {
+                emitters.forEach(SseEmitter::complete);
+                dropped.add(emitters.size());
+            }
+        }
+    }
+    
+    private ThreadPoolExecutor sender(Integer userId) {
+        return senders[Math.floorMod(userId, senders.length)];
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.backend.service;
+
+import com.example.backend.event.OutboxHandler;
+import com.example.backend.model.OutboxMessage;
+import com.example.backend.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers outbox messages to their handlers.
+ * Each poll claims a batch in a short transaction with FOR UPDATE SKIP LOCKED, so several nodes
+ * can poll at once without blocking each other, and pushes the batch's availableAt out by a lease
+ * before delivering outside the transaction. Delivered messages are marked done in one update;
+ * failed ones are retried with exponential backoff until they run out of attempts and are parked
+ * as dead. A node that dies mid-delivery simply lets the lease run out.
+ */
+@Service
+public class OutboxDispatcher {
+    
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+    
+    private static final int MAX_ERROR_LENGTH = 500;
+    
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Map<String, List<OutboxHandler>> handlersByType = new HashMap<>();
+    private final int batchSize;
+    private final long leaseMs;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final int maxAttempts;
+    private final long retentionHours;
+    
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+    
+    @Autowired
+    public OutboxDispatcher(OutboxMessageRepository outboxMessageRepository,
+                            List<OutboxHandler> handlers,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${outbox.batch-size:100}") int batchSize,
+                            @Value("${outbox.lease-ms:60000}") long leaseMs,
+                            @Value("${outbox.retry.base-delay-ms:1000}") long baseDelayMs,
+                            @Value("${outbox.retry.max-delay-ms:300000}") long maxDelayMs,
+                            @Value("${outbox.retry.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.retention-hours:24}") long retentionHours) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.leaseMs = leaseMs;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxAttempts = maxAttempts;
+        this.retentionHours = retentionHours;
+        for (OutboxHandler handler : handlers) {
+            handlersByType.computeIfAbsent(handler.eventType(), type -> new ArrayList<>()).add(handler);
+        }
+    }
+    
+    /**
+     * Deliver every message that is due, one claimed batch at a time
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void dispatch() {
+        List<OutboxMessage> batch;
+        do {
+            batch = claim();
+            List<Long> done = new ArrayList<>();
+            for (OutboxMessage message : batch) {
+                if (deliver(message)) {
+                    done.add(message.getMessageId());
+                }
+            }
+            markDone(done);
+        } while (batch.size() == batchSize);
+    }
+    
+    /**
+     * Delete delivered messages past the retention period
+     */
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours));
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(
+                    "DELETE FROM outbox_messages WHERE status = ? AND processed_at < ? LIMIT 10000",
+                    OutboxService.DONE, cutoff);
+        } while (deleted == 10000);
+    }
+    
+    /**
+     * Give a dead message a fresh set of attempts
+     * @param messageId Message ID
+     */
+    public void retry(Long messageId) {
+        int updated = jdbcTemplate.update(
+                "UPDATE outbox_messages SET status = ?, attempts = 0, available_at = ? WHERE message_id = ? AND status = ?",
+                OutboxService.PENDING, Timestamp.valueOf(LocalDateTime.now()), messageId, OutboxService.DEAD);
+        if (updated == 0) {
+            throw new IllegalArgumentException("Dead message not found");
+        }
+    }
+    
+    /**
+     * Get outbox metrics
+     * @return Pending and dead message counts, delivery counters and registered event types
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pending", outboxMessageRepository.countByStatus(OutboxService.PENDING));
+        stats.put("dead", outboxMessageRepository.countByStatus(OutboxService.DEAD));
+        stats.put("delivered", delivered.sum());
+        stats.put("failedAttempts", failed.sum());
+        stats.put("markedDead", dead.sum());
+        stats.put("eventTypes", handlersByType.keySet());
+        return stats;
+    }
+    
+    private List<OutboxMessage> claim() {
+        List<OutboxMessage> claimed = transaction.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> rows = jdbcTemplate.query(
+                    "SELECT message_id, event_type, aggregate_id, payload, attempts, created_at FROM outbox_messages " +
+                    "WHERE status = ? AND available_at <= ? ORDER BY available_at, message_id LIMIT ? " +
+                    "FOR UPDATE SKIP LOCKED",
+                    (rs, rowNum) -> {
+                        OutboxMessage message = new OutboxMessage();
+                        message.setMessageId(rs.getLong(1));
+                        message.setEventType(rs.getString(2));
+                        message.setAggregateId(rs.getString(3));
+                        message.setPayload(rs.getString(4));
+                        message.setStatus(OutboxService.PENDING);
+                        message.setAttempts(rs.getInt(5) + 1);
+                        message.setCreatedAt(rs.getTimestamp(6).toLocalDateTime());
+                        return message;
+                    },
+                    OutboxService.PENDING, Timestamp.valueOf(now), batchSize);
+            if (rows.isEmpty()) {
+                return rows;
+            }
+            
+            List<Object> args = new ArrayList<>();
+            args.add(Timestamp.valueOf(now.plusNanos(leaseMs * 1_000_000)));
+            rows.forEach(message -> args.add(message.getMessageId()));
+            jdbcTemplate.update("UPDATE outbox_messages SET attempts = attempts + 1, available_at = ? " +
+                    "WHERE message_id IN (" + SqlPlaceholders.of(rows.size()) + ")", args.toArray());
+            return rows;
+        });
+        return claimed == null ? List.of() : claimed;
+    }
+    
+    private boolean deliver(OutboxMessage message) {
+        try {
+            for (OutboxHandler handler : handlersByType.getOrDefault(message.getEventType(), List.of())) {
+                handler.handle(message);
+            }
+            delivered.increment();
+            return true;
+        } catch (Exception e) {
+            failed.increment();
+            String error = String.valueOf(e.getMessage());
+            error = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+            
+            if (message.getAttempts() >= maxAttempts) {
+                dead.increment();
+                log.error("Outbox message {} ({}) failed {} times, parking it", message.getMessageId(),
+                        message.getEventType(), message.getAttempts(), e);
+                jdbcTemplate.update("UPDATE outbox_messages SET status = ?, last_error = ? WHERE message_id = ?",
+                        OutboxService.DEAD, error, message.getMessageId());
+            } else {
+                log.warn("Outbox message {} ({}) failed, attempt {}", message.getMessageId(),
+                        message.getEventType(), message.getAttempts(), e);
+                LocalDateTime retryAt = LocalDateTime.now().plusNanos(backoffMs(message.getAttempts()) * 1_000_000);
+                jdbcTemplate.update("UPDATE outbox_messages SET available_at = ?, last_error = ? WHERE message_id = ?",
+                        Timestamp.valueOf(retryAt), error, message.getMessageId());
+            }
+            return false;
+        }
+    }
+    
+    private void markDone(List<Long> messageIds) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        List<Object> args = new ArrayList<>();
+        args.add(OutboxService.DONE);
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.addAll(messageIds);
+        jdbcTemplate.update("UPDATE outbox_messages SET status = ?, processed_at = ?, last_error = NULL " +
+                "WHERE message_id IN (" + SqlPlaceholders.of(messageIds.size()) + ")", args.toArray());
+    }
+    
+    // Doubles with every attempt up to the cap, with jitter so failed batches do not retry in lockstep
+    private long backoffMs(int attempts) {
+        long delay = Math.min(maxDelayMs, baseDelayMs << Math.min(attempts - 1, 30));
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+}
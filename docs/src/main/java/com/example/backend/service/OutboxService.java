@@ -0,0 +1,86 @@
+package com.example.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes outbox messages. Inside a transaction the messages are inserted with the rest of the
+ * transaction's messages right before commit, so they exist exactly when the business change does
+ * and cost the request one batched insert instead of the side effects themselves.
+ */
+@Service
+public class OutboxService {
+    
+    public static final String CUSTOMER_REGISTERED = "CustomerRegistered";
+    public static final String PRODUCT_PRICE_CHANGED = "ProductPriceChanged";
+    public static final String ORDER_PLACED = "OrderPlaced";
+    
+    public static final String PENDING = "PENDING";
+    public static final String DONE = "DONE";
+    public static final String DEAD = "DEAD";
+    
+    private static final String INSERT_MESSAGE_SQL =
+            "INSERT INTO outbox_messages (event_type, aggregate_id, payload, status, attempts, available_at, created_at) " +
+            "VALUES (?, ?, ?, ?, 0, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    
+    @Autowired
+    public OutboxService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Record a side effect of the current transaction
+     * @param eventType Event type the handlers are registered for
+     * @param aggregateId ID of the changed customer, product or order
+     * @param payload Event data, serialized as JSON
+     */
+    public void publish(String eventType, Object aggregateId, Object payload) {
+        Object[] row;
+        try {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            row = new Object[]{eventType, String.valueOf(aggregateId), objectMapper.writeValueAsString(payload),
+                    PENDING, now, now};
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+        
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            jdbcTemplate.update(INSERT_MESSAGE_SQL, row);
+            return;
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<Object[]> pending = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Object[]> batch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    jdbcTemplate.batchUpdate(INSERT_MESSAGE_SQL, batch);
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OutboxService.this);
+                }
+            });
+            pending = batch;
+        }
+        pending.add(row);
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.PriceBucket;
+import com.example.backend.repository.PriceHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-product price time series built from PriceHistory.
+ * Each series is an append-only byte array of delta-encoded (time, price in cents) varints with a
+ * checkpoint every 128 points, so a product with thousands of price changes takes a few kilobytes
+ * and a range query decodes only from the checkpoint before its start. Series of recently queried
+ * products stay in memory, and committed price changes are appended to them.
+ */
+@Service
+public class PriceSeriesStore {
+    
+    private static final int DEFAULT_BUCKETS = 200;
+    private static final int MAX_BUCKETS = 5000;
+    private static final Pattern SHORT_DURATION = Pattern.compile("(\\d+)\\s*([smhdw])");
+    
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maximumSize;
+    
+    // Access-ordered, so the eldest entry is the least recently queried product
+    private final LinkedHashMap<Integer, Series> cache = new LinkedHashMap<>(16, 0.75f, true);
+    
+    // Bumped when a price change arrives for a product that is not cached, so a load that
+    // raced with it is not kept
+    private final AtomicLong uncachedAppends = new AtomicLong();
+    
+    @Autowired
+    public PriceSeriesStore(PriceHistoryRepository priceHistoryRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${price.series.cache-size:1000}") int maximumSize) {
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maximumSize = maximumSize;
+    }
+    
+    /**
+     * Get the price of a product over a time range, downsampled into buckets
+     * @param productId Product ID
+     * @param from Range start, defaults to the first price change
+     * @param to Range end, defaults to now
+     * @param resolution Bucket width such as 15m, 1h, 1d, 1w or an ISO-8601 duration,
+     *                   defaults to a width giving about 200 buckets
+     * @return One OHLC bucket per interval in which a price was known
+     */
+    public List<PriceBucket> query(Integer productId, LocalDateTime from, LocalDateTime to, String resolution) {
+        Series series = series(productId);
+        
+        long end = toSeconds(to == null ? LocalDateTime.now() : to);
+        Long firstTime = series.firstTime();
+        if (firstTime == null) {
+            return new ArrayList<>();
+        }
+        long start = from == null ? firstTime : toSeconds(from);
+        if (end <= start) {
+            throw new IllegalArgumentException("to must be after from");
+        }
+        
+        long width = resolution == null || resolution.isBlank()
+                ? Math.max(1, (end - start + DEFAULT_BUCKETS - 1) / DEFAULT_BUCKETS)
+                : parseResolution(resolution).getSeconds();
+        if (width <= 0) {
+            throw new IllegalArgumentException("Resolution must be at least one second");
+        }
+        if ((end - start + width - 1) / width > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Too many buckets, use a coarser resolution");
+        }
+        
+        return downsample(series.range(start, end), start, end, width);
+    }
+    
+    /**
+     * Add a price change to the cached series of a product once the current transaction commits
+     * @param productId Product ID
+     * @param time Time of the change
+     * @param price New price
+     */
+    public void append(Integer productId, LocalDateTime time, BigDecimal price) {
+        long seconds = toSeconds(time);
+        long cents = toCents(price);
+        Runnable action = () -> {
+            Series series;
+            synchronized (cache) {
+                series = cache.get(productId);
+                if (series == null) {
+                    uncachedAppends.incrementAndGet();
+                    return;
+                }
+            }
+            if (!series.append(seconds, cents)) {
+                // Out of order, reload the series from the table on the next query
+                synchronized (cache) {
+                    cache.remove(productId);
+                }
+            }
+        };
+        
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    private Series series(Integer productId) {
+        synchronized (cache) {
+            Series cached = cache.get(productId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        
+        long appendsBeforeLoad = uncachedAppends.get();
+        Series loaded = new Series();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (Object[] row : priceHistoryRepository.findPricePointsByProductId(productId)) {
+                loaded.append(toSeconds((LocalDateTime) row[0]), toCents((BigDecimal) row[1]));
+            }
+        });
+        
+        synchronized (cache) {
+            Series cached = cache.get(productId);
+            if (cached != null) {
+                return cached;
+            }
+            if (uncachedAppends.get() == appendsBeforeLoad) {
+                cache.put(productId, loaded);
+                if (cache.size() > maximumSize) {
+                    cache.remove(cache.keySet().iterator().next());
+                }
+            }
+        }
+        return loaded;
+    }
+    
+    private static List<PriceBucket> downsample(long[][] points, long start, long end, long width) {
+        long[] times = points[0];
+        long[] cents = points[1];
+        List<PriceBucket> buckets = new ArrayList<>();
+        
+        int next = 0;
+        Long current = null;
+        // Points before the range only set the opening price
+        while (next < times.length && times[next] < start) {
+            current = cents[next++];
+        }
+        
+        for (long bucketStart = start; bucketStart < end; bucketStart += width) {
+            long bucketEnd = Math.min(bucketStart + width, end);
+            Long open = current;
+            long high = open == null ? Long.MIN_VALUE : open;
+            long low = open == null ? Long.MAX_VALUE : open;
+            long weighted = 0;
+            long known = 0;
+            long segmentStart = bucketStart;
+            int changes = 0;
+            
+            while (next < times.length && times[next] < bucketEnd) {
+                if (current != null) {
+                    weighted += current * (times[next] - segmentStart);
+                    known += times[next] - segmentStart;
+                }
+                current = cents[next];
+                segmentStart = times[next];
+                high = Math.max(high, current);
+                low = Math.min(low, current);
+                changes++;
+                next++;
+            }
+            if (current == null) {
+                continue;
+            }
+            weighted += current * (bucketEnd - segmentStart);
+            known += bucketEnd - segmentStart;
+            
+            BigDecimal average = known == 0
+                    ? fromCents(current)
+                    : BigDecimal.valueOf(weighted).divide(BigDecimal.valueOf(known), 0, RoundingMode.HALF_UP).movePointLeft(2);
+            buckets.add(new PriceBucket(
+                    LocalDateTime.ofEpochSecond(bucketStart, 0, ZoneOffset.UTC),
+                    open == null ? null : fromCents(open),
+                    fromCents(high),
+                    fromCents(low),
+                    fromCents(current),
+                    average,
+                    changes));
+        }
+        return buckets;
+    }
+    
+    static Duration parseResolution(String resolution) {
+        Matcher matcher = SHORT_DURATION.matcher(resolution.trim().toLowerCase(Locale.ROOT));
+        if (matcher.matches()) {
+            long amount = Long.parseLong(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "s": return Duration.ofSeconds(amount);
+                case "m": return Duration.ofMinutes(amount);
+                case "h": return Duration.ofHours(amount);
+                case "d": return Duration.ofDays(amount);
+                default: return Duration.ofDays(amount * 7);
+            }
+        }
+        try {
+            return Duration.parse(resolution.trim().toUpperCase(Locale.ROOT));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid resolution: " + resolution);
+        }
+    }
+    
+    private static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    private static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+    
+    /**
+     * Delta-encoded, append-only point list
+     */
+    static final class Series {
+        private static final int CHECKPOINT_INTERVAL = 128;
+        
+        private byte[] data = new byte[32];
+        private int length;
+        private int count;
+        private long lastTime;
+        private long lastCents;
+        
+        // Every CHECKPOINT_INTERVAL-th point in full, with the offset right after it
+        private long[] checkpointTimes = new long[4];
+        private long[] checkpointCents = new long[4];
+        private int[] checkpointOffsets = new int[4];
+        private int checkpoints;
+        
+        synchronized boolean append(long time, long cents) {
+            if (count > 0 && time < lastTime) {
+                return false;
+            }
+            writeVarLong(zigzag(time - lastTime));
+            writeVarLong(zigzag(cents - lastCents));
+            if (count % CHECKPOINT_INTERVAL == 0) {
+                if (checkpoints == checkpointTimes.length) {
+                    checkpointTimes = Arrays.copyOf(checkpointTimes, checkpoints * 2);
+                    checkpointCents = Arrays.copyOf(checkpointCents, checkpoints * 2);
+                    checkpointOffsets = Arrays.copyOf(checkpointOffsets, checkpoints * 2);
+                }
+                checkpointTimes[checkpoints] = time;
+                checkpointCents[checkpoints] = cents;
+                checkpointOffsets[checkpoints] = length;
+                checkpoints++;
+            }
+            lastTime = time;
+            lastCents = cents;
+            count++;
+            return true;
+        }
+        
+        synchronized Long firstTime() {
+            return count == 0 ? null : checkpointTimes[0];
+        }
+        
+        /**
+         * Decode the last point before start and every point up to end
+         * @return Times and prices in cents, as two parallel arrays
+         */
+        synchronized long[][] range(long start, long end) {
+            if (count == 0) {
+                return new long[][]{new long[0], new long[0]};
+            }
+            // Last checkpoint at or before start, the point it holds may be the opening price
+            int checkpoint = Arrays.binarySearch(checkpointTimes, 0, checkpoints, start);
+            if (checkpoint < 0) {
+                checkpoint = Math.max(0, -checkpoint - 2);
+            }
+            while (checkpoint > 0 && checkpointTimes[checkpoint] == start) {
+                checkpoint--;
+            }
+            
+            long time = checkpointTimes[checkpoint];
+            long cents = checkpointCents[checkpoint];
+            int offset = checkpointOffsets[checkpoint];
+            int remaining = count - checkpoint * CHECKPOINT_INTERVAL - 1;
+            
+            long[] times = new long[16];
+            long[] prices = new long[16];
+            int size = 0;
+            long[] cursor = {offset};
+            while (true) {
+                if (time < start && size > 0) {
+                    // Only keep the latest point before the range
+                    size = 0;
+                }
+                if (size == times.length) {
+                    times = Arrays.copyOf(times, size * 2);
+                    prices = Arrays.copyOf(prices, size * 2);
+                }
+                times[size] = time;
+                prices[size] = cents;
+                size++;
+                
+                if (remaining-- == 0) {
+                    break;
+                }
+                time += unzigzag(readVarLong(cursor));
+                cents += unzigzag(readVarLong(cursor));
+                if (time >= end) {
+                    break;
+                }
+            }
+            return new long[][]{Arrays.copyOf(times, size), Arrays.copyOf(prices, size)};
+        }
+        
+        private void writeVarLong(long value) {
+            if (length + 10 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((value & ~0x7FL) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+        
+        private long readVarLong(long[] cursor) {
+            int position = (int) cursor[0];
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            cursor[0] = position;
+            return value;
+        }
+        
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+        
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
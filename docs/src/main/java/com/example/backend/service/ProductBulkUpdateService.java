@@ -0,0 +1,357 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.BulkUpdateFailure;
+import com.example.backend.dto.BulkUpdateResult;
+import com.example.backend.dto.PriceUpdateItem;
+import com.example.backend.dto.StockUpdateItem;
+import com.example.backend.event.EntityChangedEvent;
+import com.example.backend.model.Product;
+import com.example.backend.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk stock and price updates for catalog syncs.
+ * Items are applied in chunks, each in its own transaction: one locking read of the current
+ * values, one set-based UPDATE for the whole chunk and, for prices, one batched PriceHistory
+ * insert. A failing chunk is reported item by item and does not undo the other chunks.
+ */
+@Service
+public class ProductBulkUpdateService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductBulkUpdateService.class);
+    
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_ITEMS = 100_000;
+    
+    private static final String INSERT_PRICE_HISTORY_SQL =
+            "INSERT INTO price_history (product_id, old_price, new_price, currency_code, change_date, changed_by) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    
+    private final ProductRepository productRepository;
+    private final CurrencyService currencyService;
+    private final InventoryCounters inventoryCounters;
+    private final StockReservationService stockReservationService;
+    private final StockMovementService stockMovementService;
+    private final PriceSeriesStore priceSeriesStore;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    
+    @Autowired
+    public ProductBulkUpdateService(ProductRepository productRepository,
+                                    CurrencyService currencyService,
+                                    InventoryCounters inventoryCounters,
+                                    StockReservationService stockReservationService,
+                                    StockMovementService stockMovementService,
+                                    PriceSeriesStore priceSeriesStore,
+                                    OutboxService outboxService,
+                                    ApplicationEventPublisher eventPublisher,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.currencyService = currencyService;
+        this.inventoryCounters = inventoryCounters;
+        this.stockReservationService = stockReservationService;
+        this.stockMovementService = stockMovementService;
+        this.priceSeriesStore = priceSeriesStore;
+        this.outboxService = outboxService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Set the stock of many products
+     * @param items Product ID and new stock pairs, a later pair for the same product wins
+     * @return Counts and the failed items
+     */
+    public BulkUpdateResult updateStock(List<StockUpdateItem> items) {
+        checkSize(items);
+        long start = System.currentTimeMillis();
+        BulkUpdateResult result = new BulkUpdateResult();
+        result.setRequested(items.size());
+        
+        Map<Integer, Integer> stockById = new LinkedHashMap<>();
+        for (StockUpdateItem item : items) {
+            if (item.getProductId() == null) {
+                fail(result, null, "Missing productId");
+            } else if (item.getStock() == null || item.getStock() < 0) {
+                fail(result, item.getProductId(), "Stock cannot be negative");
+            } else {
+                stockById.put(item.getProductId(), item.getStock());
+            }
+        }
+        
+        for (List<Integer> chunk : chunks(stockById)) {
+            try {
+                ChunkOutcome outcome = transaction.execute(status -> applyStockChunk(chunk, stockById));
+                record(result, outcome);
+            } catch (RuntimeException e) {
+                log.warn("Bulk stock chunk of {} items failed", chunk.size(), e);
+                chunk.forEach(productId -> fail(result, productId, "Update failed: " + e.getMessage()));
+            }
+        }
+        
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        return result;
+    }
+    
+    /**
+     * Set the price of many products and record their price history
+     * @param items Product ID, price and currency, a later item for the same product wins
+     * @param changedBy User who made the change
+     * @return Counts and the failed items
+     */
+    public BulkUpdateResult updatePrices(List<PriceUpdateItem> items, String changedBy) {
+        checkSize(items);
+        long start = System.currentTimeMillis();
+        BulkUpdateResult result = new BulkUpdateResult();
+        result.setRequested(items.size());
+        
+        String baseCurrency = currencyService.getBaseCurrency();
+        Map<String, BigDecimal> rates = currencyService.getAvailableCurrencies();
+        Map<Integer, BigDecimal> priceById = new LinkedHashMap<>();
+        for (PriceUpdateItem item : items) {
+            if (item.getProductId() == null) {
+                fail(result, null, "Missing productId");
+                continue;
+            }
+            if (item.getPrice() == null || item.getPrice().signum() < 0) {
+                fail(result, item.getProductId(), "Price cannot be negative");
+                continue;
+            }
+            String currencyCode = item.getCurrencyCode() == null ? baseCurrency : item.getCurrencyCode();
+            if (currencyCode.equals(baseCurrency)) {
+                priceById.put(item.getProductId(), item.getPrice().setScale(2, RoundingMode.HALF_UP));
+                continue;
+            }
+            BigDecimal rate = rates.get(currencyCode);
+            if (rate == null) {
+                fail(result, item.getProductId(), "Invalid currency code");
+                continue;
+            }
+            priceById.put(item.getProductId(), item.getPrice().divide(rate, 2, RoundingMode.HALF_UP));
+        }
+        
+        writePrices(result, priceById, null, baseCurrency, changedBy);
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        return result;
+    }
+    
+    /**
+     * Set the base currency price of products whose price is still the one the caller read.
+     * Meant for prices computed inside the application, so there is no limit on the number of items;
+     * they are written in chunks like any other bulk update.
+     * @param readPrices Price of each product when the new price was computed
+     * @param newPrices New base currency price of each product
+     * @param changedBy User who made the change
+     * @return Counts, the failed items and the products skipped because their price changed meanwhile
+     */
+    public BulkUpdateResult updatePricesIfUnchanged(Map<Integer, BigDecimal> readPrices,
+                                                    Map<Integer, BigDecimal> newPrices, String changedBy) {
+        long start = System.currentTimeMillis();
+        BulkUpdateResult result = new BulkUpdateResult();
+        result.setRequested(newPrices.size());
+        writePrices(result, newPrices, readPrices, currencyService.getBaseCurrency(), changedBy);
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        return result;
+    }
+    
+    private void writePrices(BulkUpdateResult result, Map<Integer, BigDecimal> priceById,
+                             Map<Integer, BigDecimal> expected, String currencyCode, String changedBy) {
+        for (List<Integer> chunk : chunks(priceById)) {
+            try {
+                ChunkOutcome outcome = transaction.execute(status ->
+                        applyPriceChunk(chunk, priceById, expected, currencyCode, changedBy));
+                record(result, outcome);
+            } catch (RuntimeException e) {
+                log.warn("Bulk price chunk of {} items failed", chunk.size(), e);
+                chunk.forEach(productId -> fail(result, productId, "Update failed: " + e.getMessage()));
+            }
+        }
+    }
+    
+    private ChunkOutcome applyStockChunk(List<Integer> chunk, Map<Integer, Integer> stockById) {
+        // Lock the rows so the deltas below match what the UPDATE replaces
+        Map<Integer, Object[]> current = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT product_id, stock, model_id, is_active FROM products WHERE product_id IN (" +
+                SqlPlaceholders.of(chunk.size()) + ") FOR UPDATE",
+                rs -> {
+                    current.put(rs.getInt(1), new Object[]{rs.getInt(2), rs.getInt(3), rs.getBoolean(4)});
+                },
+                chunk.toArray());
+        
+        List<Integer> changed = new ArrayList<>();
+        List<BulkUpdateFailure> missing = new ArrayList<>();
+        int unchanged = 0;
+        for (Integer productId : chunk) {
+            Object[] row = current.get(productId);
+            if (row == null) {
+                missing.add(new BulkUpdateFailure(productId, "Product not found"));
+            } else if ((Integer) row[0] == stockById.get(productId).intValue()) {
+                unchanged++;
+            } else {
+                changed.add(productId);
+            }
+        }
+        
+        if (!changed.isEmpty()) {
+            List<Object> args = new ArrayList<>();
+            StringBuilder sql = new StringBuilder("UPDATE products SET stock = CASE product_id");
+            for (Integer productId : changed) {
+                sql.append(" WHEN ? THEN ?");
+                args.add(productId);
+                args.add(stockById.get(productId));
+            }
+            sql.append(" END, updated_at = ? WHERE product_id IN (").append(SqlPlaceholders.of(changed.size())).append(")");
+            args.add(Timestamp.valueOf(LocalDateTime.now()));
+            args.addAll(changed);
+            jdbcTemplate.update(sql.toString(), args.toArray());
+            
+            for (Integer productId : changed) {
+                Object[] row = current.get(productId);
+                int delta = stockById.get(productId) - (Integer) row[0];
+                if ((Boolean) row[2]) {
+                    inventoryCounters.adjust((Integer) row[1], delta);
+                }
+                stockReservationService.adjustAvailable(productId, delta);
+                stockMovementService.record(productId, delta, StockMovementService.ADJUSTMENT);
+            }
+            publishUpdated(changed);
+        }
+        
+        return new ChunkOutcome(changed.size(), unchanged, missing, List.of());
+    }
+    
+    private ChunkOutcome applyPriceChunk(List<Integer> chunk, Map<Integer, BigDecimal> priceById,
+                                         Map<Integer, BigDecimal> expected, String currencyCode, String changedBy) {
+        Map<Integer, BigDecimal> current = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT product_id, price FROM products WHERE product_id IN (" +
+                SqlPlaceholders.of(chunk.size()) + ") FOR UPDATE",
+                rs -> {
+                    current.put(rs.getInt(1), rs.getBigDecimal(2));
+                },
+                chunk.toArray());
+        
+        List<Integer> changed = new ArrayList<>();
+        List<BulkUpdateFailure> missing = new ArrayList<>();
+        List<Integer> skipped = new ArrayList<>();
+        int unchanged = 0;
+        for (Integer productId : chunk) {
+            BigDecimal oldPrice = current.get(productId);
+            if (oldPrice == null) {
+                missing.add(new BulkUpdateFailure(productId, "Product not found"));
+            } else if (expected != null && oldPrice.compareTo(expected.get(productId)) != 0) {
+                // The row is locked, so this is the same guard as WHERE price = <price read>
+                skipped.add(productId);
+            } else if (oldPrice.compareTo(priceById.get(productId)) == 0) {
+                unchanged++;
+            } else {
+                changed.add(productId);
+            }
+        }
+        
+        if (!changed.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object> args = new ArrayList<>();
+            StringBuilder sql = new StringBuilder("UPDATE products SET price = CASE product_id");
+            for (Integer productId : changed) {
+                sql.append(" WHEN ? THEN ?");
+                args.add(productId);
+                args.add(priceById.get(productId));
+            }
+            sql.append(" END, updated_at = ? WHERE product_id IN (").append(SqlPlaceholders.of(changed.size())).append(")");
+            args.add(now);
+            args.addAll(changed);
+            jdbcTemplate.update(sql.toString(), args.toArray());
+            
+            List<Object[]> history = new ArrayList<>();
+            for (Integer productId : changed) {
+                history.add(new Object[]{productId, current.get(productId), priceById.get(productId),
+                        currencyCode, now, changedBy});
+            }
+            jdbcTemplate.batchUpdate(INSERT_PRICE_HISTORY_SQL, history);
+            for (Integer productId : changed) {
+                priceSeriesStore.append(productId, now.toLocalDateTime(), priceById.get(productId));
+                outboxService.publish(OutboxService.PRODUCT_PRICE_CHANGED, productId,
+                        ProductService.priceChange(productId, current.get(productId), priceById.get(productId)));
+            }
+            publishUpdated(changed);
+        }
+        
+        return new ChunkOutcome(changed.size(), unchanged, missing, skipped);
+    }
+    
+    private void publishUpdated(List<Integer> productIds) {
+        // The UPDATE bypassed JPA, so raise the events its listener would have
+        for (Product product : productRepository.findWithDetailsByProductIdIn(productIds)) {
+            eventPublisher.publishEvent(EntityChangedEvent.updated(product));
+        }
+    }
+    
+    private static void record(BulkUpdateResult result, ChunkOutcome outcome) {
+        result.setUpdated(result.getUpdated() + outcome.updated);
+        result.setUnchanged(result.getUnchanged() + outcome.unchanged);
+        result.setFailed(result.getFailed() + outcome.missing.size());
+        result.getFailures().addAll(outcome.missing);
+        result.setSkipped(result.getSkipped() + outcome.skipped.size());
+        result.getSkippedProductIds().addAll(outcome.skipped);
+    }
+    
+    private static void fail(BulkUpdateResult result, Integer productId, String reason) {
+        result.setFailed(result.getFailed() + 1);
+        result.getFailures().add(new BulkUpdateFailure(productId, reason));
+    }
+    
+    private static void checkSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("No items to update");
+        }
+        if (items.size() > MAX_ITEMS) {
+            throw new IllegalArgumentException("At most " + MAX_ITEMS + " items per request");
+        }
+    }
+    
+    private static List<List<Integer>> chunks(Map<Integer, ?> values) {
+        List<Integer> productIds = new ArrayList<>(values.keySet());
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < productIds.size(); from += CHUNK_SIZE) {
+            chunks.add(productIds.subList(from, Math.min(from + CHUNK_SIZE, productIds.size())));
+        }
+        return chunks;
+    }
+    
+    private static final class ChunkOutcome {
+        final int updated;
+        final int unchanged;
+        final List<BulkUpdateFailure> missing;
+        final List<Integer> skipped;
+        
+        ChunkOutcome(int updated, int unchanged, List<BulkUpdateFailure> missing, List<Integer> skipped) {
+            this.updated = updated;
+            this.unchanged = unchanged;
+            this.missing = missing;
+            this.skipped = skipped;
+        }
+    }
+}
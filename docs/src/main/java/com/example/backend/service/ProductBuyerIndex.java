@@ -0,0 +1,195 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.OrderItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Reverse index from product to the customers who ordered it.
+ * Each product keeps a set of buyer user IDs, a sorted int array while sparse and a bitmap once dense,
+ * so buyer counts and pages never touch the order tables. Loaded once, then fed by order inserts
+ * after commit. Adding a buyer twice is a no-op, so orders committed during the load are not lost.
+ */
+@Service
+public class ProductBuyerIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductBuyerIndex.class);
+    
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    
+    private final ConcurrentHashMap<Integer, BuyerSet> buyersByProduct = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+    
+    @Autowired
+    public ProductBuyerIndex(OrderItemRepository orderItemRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${product.buyer-index.enabled:true}") boolean enabled) {
+        this.orderItemRepository = orderItemRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Whether the index has been loaded
+     * @return True once the initial load has finished
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+    
+    /**
+     * Load every (product, buyer) pair from the order tables
+     */
+    public void rebuild() {
+        long[] pairs = new long[1];
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = orderItemRepository.streamProductBuyers()) {
+                rows.forEach(row -> {
+                    add((Integer) row[0], (Integer) row[1]);
+                    pairs[0]++;
+                });
+            }
+        });
+        ready = true;
+        log.info("Product buyer index loaded from {} order items for {} products", pairs[0], buyersByProduct.size());
+    }
+    
+    /**
+     * Record that a customer ordered some products, once the current transaction commits
+     * @param userId Customer user ID
+     * @param productIds Ordered product IDs
+     */
+    public void recordPurchase(Integer userId, Collection<Integer> productIds) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            productIds.forEach(productId -> add(productId, userId));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productIds.forEach(productId -> add(productId, userId));
+            }
+        });
+    }
+    
+    /**
+     * Count the distinct customers who ordered a product
+     * @param productId Product ID
+     * @return Number of buyers
+     */
+    public int countBuyers(Integer productId) {
+        BuyerSet buyers = buyersByProduct.get(productId);
+        return buyers == null ? 0 : buyers.size();
+    }
+    
+    /**
+     * Get a page of buyers of a product in user ID order
+     * @param productId Product ID
+     * @param afterUserId Last user ID of the previous page, or null
+     * @param limit Maximum number of user IDs
+     * @return Buyer user IDs greater than the cursor
+     */
+    public int[] getBuyers(Integer productId, Integer afterUserId, int limit) {
+        BuyerSet buyers = buyersByProduct.get(productId);
+        return buyers == null ? new int[0] : buyers.page(afterUserId == null ? 0 : afterUserId, limit);
+    }
+    
+    private void add(Integer productId, Integer userId) {
+        buyersByProduct.computeIfAbsent(productId, id -> new BuyerSet()).add(userId);
+    }
+    
+    /**
+     * Set of user IDs that picks the smaller representation for its density
+     */
+    static final class BuyerSet {
+        // A bitmap costs one bit per ID up to the largest one, the array 32 bits per member
+        private static final int MIN_BITMAP_SIZE = 64;
+        
+        private int[] sorted = new int[4];
+        private BitSet bitmap;
+        private int size;
+        
+        synchronized boolean add(int userId) {
+            if (bitmap != null) {
+                if (bitmap.get(userId)) {
+                    return false;
+                }
+                bitmap.set(userId);
+                size++;
+                return true;
+            }
+            
+            int position = Arrays.binarySearch(sorted, 0, size, userId);
+            if (position >= 0) {
+                return false;
+            }
+            position = -position - 1;
+            if (size == sorted.length) {
+                sorted = Arrays.copyOf(sorted, size * 2);
+            }
+            System.arraycopy(sorted, position, sorted, position + 1, size - position);
+            sorted[position] = userId;
+            size++;
+            
+            if (size >= MIN_BITMAP_SIZE && (long) size * Integer.SIZE > sorted[size - 1]) {
+                bitmap = new BitSet(sorted[size - 1] + 1);
+                for (int i = 0; i < size; i++) {
+                    bitmap.set(sorted[i]);
+                }
+                sorted = null;
+            }
+            return true;
+        }
+        
+        synchronized int size() {
+            return size;
+        }
+        
+        synchronized int[] page(int afterUserId, int limit) {
+            int[] page = new int[Math.min(limit, size)];
+            int count = 0;
+            if (bitmap != null) {
+                int userId = bitmap.nextSetBit(afterUserId + 1);
+                while (userId >= 0 && count < page.length) {
+                    page[count++] = userId;
+                    userId = bitmap.nextSetBit(userId + 1);
+                }
+            } else {
+                int position = Arrays.binarySearch(sorted, 0, size, afterUserId + 1);
+                position = position >= 0 ? position : -position - 1;
+                while (position < size && count < page.length) {
+                    page[count++] = sorted[position++];
+                }
+            }
+            return count == page.length ? page : Arrays.copyOf(page, count);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ProductSummary;
+import com.example.backend.event.EntityChangedEvent;
+import com.example.backend.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of product summaries.
+ * Eviction is LRU with a TinyLFU admission filter: when the cache is full a new product only
+ * replaces the least recently used one if it has been requested more often, so one-off reads
+ * (crawlers, full catalog scans) cannot flush out the popular detail pages.
+ * Entries expire after a fixed TTL and are dropped after every committed product write.
+ * Reads only touch a concurrent map and append the key to a read buffer; the LRU order and the
+ * frequency sketch are updated from that buffer in batches by whichever thread gets the policy
+ * lock, so cache hits never wait on each other.
+ */
+@Service
+public class ProductCache {
+    
+    // Reads recorded before the buffer is drained, and the most it holds before reads are dropped
+    private static final int DRAIN_THRESHOLD = 64;
+    private static final int MAX_BUFFERED_READS = 4096;
+    
+    private final int maximumSize;
+    private final long ttlNanos;
+    
+    private final ConcurrentHashMap<Integer, Entry> data = new ConcurrentHashMap<>();
+    
+    // Guards the eviction policy below; writes take it, reads only try it to drain the read buffer
+    private final ReentrantLock policyLock = new ReentrantLock();
+    // Access-ordered, so the first entry is always the least recently used one
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    
+    // Lossy: when it is full a read is simply not recorded, which only blurs the LRU order slightly
+    private final ConcurrentLinkedQueue<Integer> readBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger bufferedReads = new AtomicInteger();
+    
+    // Bumped on every invalidation so loads that raced with a write are not cached
+    private final AtomicLong invalidations = new AtomicLong();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    
+    public ProductCache(@Value("${product.cache.maximum-size:10000}") int maximumSize,
+                        @Value("${product.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.maximumSize = maximumSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+    
+    /**
+     * Get a product summary, loading and caching it on a miss
+     * @param productId Product ID
+     * @param loader Loads the summary from the database, may return null
+     * @return Product summary or null when the loader found nothing
+     */
+    public ProductSummary getOrLoad(Integer productId, Function<Integer, ProductSummary> loader) {
+        ProductSummary cached = get(productId);
+        if (cached != null) {
+            return cached;
+        }
+        long invalidationsBeforeLoad = invalidations.get();
+        ProductSummary loaded = loader.apply(productId);
+        if (loaded != null) {
+            put(productId, loaded, invalidationsBeforeLoad);
+        }
+        return loaded;
+    }
+    
+    /**
+     * Get a cached product summary
+     * @param productId Product ID
+     * @return Cached summary or null
+     */
+    public ProductSummary get(Integer productId) {
+        recordRead(productId);
+        Entry entry = data.get(productId);
+        if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+            hits.increment();
+            return entry.value;
+        }
+        if (entry != null) {
+            policyLock.lock();
+            try {
+                if (data.remove(productId, entry)) {
+                    entries.remove(productId);
+                    evictions.increment();
+                }
+            } finally {
+                policyLock.unlock();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+    
+    /**
+     * Current invalidation counter, pass it to {@link #put(Integer, ProductSummary, long)}
+     * @return Invalidation counter
+     */
+    public long invalidationCount() {
+        return invalidations.get();
+    }
+    
+    /**
+     * Cache a summary loaded by the caller, unless a product write committed since the load started
+     * @param productId Product ID
+     * @param value Product summary
+     * @param invalidationsBeforeLoad Result of {@link #invalidationCount()} taken before loading
+     */
+    public void put(Integer productId, ProductSummary value, long invalidationsBeforeLoad) {
+        policyLock.lock();
+        try {
+            drainReads();
+            if (invalidations.get() != invalidationsBeforeLoad) {
+                return;
+            }
+            if (!entries.containsKey(productId) && entries.size() >= maximumSize) {
+                Iterator<Map.Entry<Integer, Entry>> eldest = entries.entrySet().iterator();
+                Map.Entry<Integer, Entry> victim = eldest.next();
+                // TinyLFU admission: only replace the victim with a more frequently used product
+                if (sketch.frequency(productId) <= sketch.frequency(victim.getKey())) {
+                    rejections.increment();
+                    return;
+                }
+                eldest.remove();
+                data.remove(victim.getKey());
+                evictions.increment();
+            }
+            Entry entry = new Entry(value, System.nanoTime() + ttlNanos);
+            entries.put(productId, entry);
+            data.put(productId, entry);
+        } finally {
+            policyLock.unlock();
+        }
+    }
+    
+    /**
+     * Drop a product from the cache
+     * @param productId Product ID
+     */
+    public void invalidate(Integer productId) {
+        policyLock.lock();
+        try {
+            invalidations.incrementAndGet();
+            entries.remove(productId);
+            data.remove(productId);
+        } finally {
+            policyLock.unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(EntityChangedEvent<Product> event) {
+        invalidate(event.getEntity().getProductId());
+    }
+    
+    /**
+     * Get cache metrics
+     * @return Hit, miss, eviction and rejection counts and the current size
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        stats.put("evictions", evictions.sum());
+        stats.put("rejections", rejections.sum());
+        stats.put("size", data.size());
+        stats.put("maximumSize", maximumSize);
+        return stats;
+    }
+    
+    private void recordRead(Integer productId) {
+        if (bufferedReads.get() >= MAX_BUFFERED_READS) {
+            return;
+        }
+        readBuffer.offer(productId);
+        if (bufferedReads.incrementAndGet() >= DRAIN_THRESHOLD && policyLock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+    
+    // Callers hold the policy lock
+    private void drainReads() {
+        Integer productId;
+        while ((productId = readBuffer.poll()) != null) {
+            bufferedReads.decrementAndGet();
+            sketch.increment(productId);
+            // An access-ordered get moves the entry to the most recently used end
+            entries.get(productId);
+        }
+    }
+    
+    private static final class Entry {
+        final ProductSummary value;
+        final long expiresAt;
+        
+        Entry(ProductSummary value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    /**
+     * Count-min sketch with 4 hash rows of small saturating counters.
+     * All counters are halved periodically so old popularity fades out.
+     */
+    private static final class FrequencySketch {
+        
+        private static final int ROWS = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+        
+        private final int[][] counters;
+        private final int mask;
+        private final int resetThreshold;
+        private int additions;
+        
+        FrequencySketch(int expectedSize) {
+            int width = Integer.highestOneBit(Math.max(16, expectedSize) - 1) << 1;
+            this.counters = new int[ROWS][width];
+            this.mask = width - 1;
+            this.resetThreshold = 10 * Math.max(16, expectedSize);
+        }
+        
+        void increment(int key) {
+            for (int row = 0; row < ROWS; row++) {
+                int index = index(key, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                }
+            }
+            if (++additions >= resetThreshold) {
+                halve();
+            }
+        }
+        
+        int frequency(int key) {
+            int min = MAX_COUNT;
+            for (int row = 0; row < ROWS; row++) {
+                min = Math.min(min, counters[row][index(key, row)]);
+            }
+            return min;
+        }
+        
+        private int index(int key, int row) {
+            int hash = key * SEEDS[row];
+            hash ^= hash >>> 16;
+            return hash & mask;
+        }
+        
+        private void halve() {
+            for (int[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.example.backend.service;
+
+import com.example.backend.event.EntityChangeType;
+import com.example.backend.event.EntityChangedEvent;
+import com.example.backend.model.CarModel;
+import com.example.backend.model.Product;
+import com.example.backend.repository.CarModelRepository;
+import com.example.backend.repository.ProductRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory facet index over active products and car models.
+ * Every facet value owns a bitmap of product (or model) IDs, so filters are answered by
+ * bitmap intersection instead of the "(:x IS NULL OR ...)" JPQL queries.
+ */
+@Service
+public class ProductFacetIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetIndex.class);
+    
+    // Width of a price facet bucket in base currency
+    private static final long PRICE_BUCKET_CENTS = 10_000_00L;
+    
+    public enum Dimension {
+        MODEL, COLOR, PACKAGE_TYPE, BRAND, BODY_STYLE, TRANSMISSION, ENERGY_SOURCE, PRICE_BUCKET
+    }
+    
+    private static final Dimension[] MODEL_DIMENSIONS = {
+        Dimension.BRAND, Dimension.BODY_STYLE, Dimension.TRANSMISSION, Dimension.ENERGY_SOURCE
+    };
+    
+    @Getter
+    @AllArgsConstructor
+    public static class FacetResult {
+        // Matching product IDs in ascending order
+        private final BitSet matches;
+        // Dimension -> facet value ID -> number of matching products
+        private final Map<Dimension, Map<Integer, Integer>> facets;
+    }
+    
+    private final ProductRepository productRepository;
+    private final CarModelRepository carModelRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    private volatile boolean ready = false;
+    
+    // Changes committed while a rebuild is running, replayed on top of the new state
+    private List<EntityChangedEvent<?>> pendingDuringBuild;
+    
+    @Autowired
+    public ProductFacetIndex(ProductRepository productRepository,
+                             CarModelRepository carModelRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.carModelRepository = carModelRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    /**
+     * Whether the index has been built and can answer queries
+     * @return True once the initial build has finished
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+    
+    /**
+     * Rebuild the whole index from the database
+     */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringBuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        State fresh = new State();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (CarModel model : carModelRepository.findAll()) {
+                fresh.putModel(model);
+            }
+            try (Stream<Product> products = productRepository.streamActiveProducts()) {
+                products.forEach(fresh::putProduct);
+            }
+        });
+        
+        lock.writeLock().lock();
+        try {
+            for (EntityChangedEvent<?> event : pendingDuringBuild) {
+                fresh.apply(event);
+            }
+            pendingDuringBuild = null;
+            state = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product facet index built with {} products and {} models",
+                fresh.products.size(), fresh.models.size());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(EntityChangedEvent<Product> event) {
+        applyChange(event);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCarModelChanged(EntityChangedEvent<CarModel> event) {
+        applyChange(event);
+    }
+    
+    private void applyChange(EntityChangedEvent<?> event) {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringBuild != null) {
+                pendingDuringBuild.add(event);
+            }
+            state.apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Filter active, in-stock products and count facets for every dimension
+     * @param filters Selected facet value per dimension (PRICE_BUCKET is ignored, use the price range)
+     * @param minPrice Minimum price in base currency, or null
+     * @param maxPrice Maximum price in base currency, or null
+     * @return Matching product IDs and facet counts
+     */
+    public FacetResult filterProducts(Map<Dimension, Integer> filters, BigDecimal minPrice, BigDecimal maxPrice) {
+        return filterProducts(filters, null, minPrice, maxPrice);
+    }
+    
+    /**
+     * Filter products with a price range computed elsewhere, e.g. on converted prices
+     * @param filters Selected value per dimension, null values are ignored
+     * @param priceRange Products inside the price range, null for no price filter
+     * @return Matching product IDs and facet counts
+     */
+    public FacetResult filterProducts(Map<Dimension, Integer> filters, BitSet priceRange) {
+        return filterProducts(filters, priceRange, null, null);
+    }
+    
+    private FacetResult filterProducts(Map<Dimension, Integer> filters, BitSet externalPriceRange,
+                                       BigDecimal minPrice, BigDecimal maxPrice) {
+        lock.readLock().lock();
+        try {
+            Map<Dimension, BitSet> selections = new EnumMap<>(Dimension.class);
+            for (Map.Entry<Dimension, Integer> filter : filters.entrySet()) {
+                if (filter.getValue() != null && filter.getKey() != Dimension.PRICE_BUCKET) {
+                    selections.put(filter.getKey(), state.productBitmap(filter.getKey(), filter.getValue()));
+                }
+            }
+            BitSet priceRange = externalPriceRange != null ? externalPriceRange
+                    : (minPrice == null && maxPrice == null) ? null : state.priceRange(minPrice, maxPrice);
+            
+            BitSet matches = intersect(state.inStock, selections, null, priceRange);
+            
+            Map<Dimension, Map<Integer, Integer>> facets = new EnumMap<>(Dimension.class);
+            for (Dimension dimension : Dimension.values()) {
+                // Each dimension is counted against every filter except its own
+                BitSet base = dimension == Dimension.PRICE_BUCKET
+                        ? intersect(state.inStock, selections, null, null)
+                        : intersect(state.inStock, selections, dimension, priceRange);
+                Map<Integer, Integer> counts = new HashMap<>();
+                for (Map.Entry<Integer, BitSet> value : state.productBitmaps.get(dimension).entrySet()) {
+                    BitSet counted = (BitSet) base.clone();
+                    counted.and(value.getValue());
+                    int count = counted.cardinality();
+                    if (count > 0) {
+                        counts.put(value.getKey(), count);
+                    }
+                }
+                facets.put(dimension, counts);
+            }
+            
+            return new FacetResult(matches, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Filter active car models
+     * @param brandId Brand ID or null
+     * @param bodyStyleId Body style ID or null
+     * @param transmissionId Transmission ID or null
+     * @param energySourceId Energy source ID or null
+     * @return Matching model IDs in ascending order
+     */
+    public List<Integer> filterModels(Integer brandId, Integer bodyStyleId, Integer transmissionId, Integer energySourceId) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = (BitSet) state.activeModels.clone();
+            Integer[] values = {brandId, bodyStyleId, transmissionId, energySourceId};
+            for (int i = 0; i < MODEL_DIMENSIONS.length; i++) {
+                if (values[i] != null) {
+                    matches.and(state.modelBitmaps.get(MODEL_DIMENSIONS[i]).getOrDefault(values[i], new BitSet()));
+                }
+            }
+            
+            List<Integer> modelIds = new ArrayList<>(matches.cardinality());
+            for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+                modelIds.add(id);
+            }
+            return modelIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private static BitSet intersect(BitSet base, Map<Dimension, BitSet> selections, Dimension skip, BitSet priceRange) {
+        BitSet result = (BitSet) base.clone();
+        for (Map.Entry<Dimension, BitSet> selection : selections.entrySet()) {
+            if (selection.getKey() != skip) {
+                result.and(selection.getValue());
+            }
+        }
+        if (priceRange != null) {
+            result.and(priceRange);
+        }
+        return result;
+    }
+    
+    private static long toCents(BigDecimal price) {
+        return price.movePointRight(2).longValue();
+    }
+    
+    private static class IndexedModel {
+        int brandId;
+        int bodyStyleId;
+        int transmissionId;
+        int energySourceId;
+        
+        int valueOf(Dimension dimension) {
+            switch (dimension) {
+                case BRAND: return brandId;
+                case BODY_STYLE: return bodyStyleId;
+                case TRANSMISSION: return transmissionId;
+                case ENERGY_SOURCE: return energySourceId;
+                default: throw new IllegalArgumentException("Not a model dimension: " + dimension);
+            }
+        }
+    }
+    
+    private static class IndexedProduct {
+        int modelId;
+        int colorId;
+        int packageTypeId;
+        long priceCents;
+        boolean inStock;
+    }
+    
+    /**
+     * Index contents, only accessed while holding the lock
+     */
+    private static class State {
+        final Map<Integer, IndexedModel> models = new HashMap<>();
+        final Map<Integer, IndexedProduct> products = new HashMap<>();
+        final BitSet activeModels = new BitSet();
+        final BitSet inStock = new BitSet();
+        final Map<Dimension, Map<Integer, BitSet>> modelBitmaps = new EnumMap<>(Dimension.class);
+        final Map<Dimension, Map<Integer, BitSet>> productBitmaps = new EnumMap<>(Dimension.class);
+        // Product IDs per model, used to re-index products when a model changes
+        final Map<Integer, BitSet> productsByModel = new HashMap<>();
+        
+        State() {
+            for (Dimension dimension : MODEL_DIMENSIONS) {
+                modelBitmaps.put(dimension, new HashMap<>());
+            }
+            for (Dimension dimension : Dimension.values()) {
+                productBitmaps.put(dimension, new HashMap<>());
+            }
+        }
+        
+        void apply(EntityChangedEvent<?> event) {
+            Object entity = event.getEntity();
+            boolean deleted = event.getType() == EntityChangeType.DELETED;
+            if (entity instanceof Product) {
+                Product product = (Product) entity;
+                if (deleted || !Boolean.TRUE.equals(product.getIsActive())) {
+                    removeProduct(product.getProductId());
+                } else {
+                    putProduct(product);
+                }
+            } else if (entity instanceof CarModel) {
+                CarModel model = (CarModel) entity;
+                if (deleted) {
+                    removeModel(model.getModelId());
+                } else {
+                    putModel(model);
+                }
+            }
+        }
+        
+        BitSet productBitmap(Dimension dimension, int value) {
+            return productBitmaps.get(dimension).getOrDefault(value, new BitSet());
+        }
+        
+        BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+            long min = minPrice == null ? Long.MIN_VALUE : toCents(minPrice);
+            long max = maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice);
+            BitSet result = new BitSet();
+            for (Map.Entry<Integer, BitSet> bucket : productBitmaps.get(Dimension.PRICE_BUCKET).entrySet()) {
+                long bucketMin = bucket.getKey() * PRICE_BUCKET_CENTS;
+                long bucketMax = bucketMin + PRICE_BUCKET_CENTS - 1;
+                if (bucketMax < min || bucketMin > max) {
+                    continue;
+                }
+                if (bucketMin >= min && bucketMax <= max) {
+                    result.or(bucket.getValue());
+                    continue;
+                }
+                // Bucket straddles a bound, check the exact prices
+                BitSet ids = bucket.getValue();
+                for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                    long price = products.get(id).priceCents;
+                    if (price >= min && price <= max) {
+                        result.set(id);
+                    }
+                }
+            }
+            return result;
+        }
+        
+        void putModel(CarModel model) {
+            int modelId = model.getModelId();
+            removeModel(modelId);
+            
+            IndexedModel indexed = new IndexedModel();
+            indexed.brandId = model.getBrand().getBrandId();
+            indexed.bodyStyleId = model.getBodyStyle().getBodyStyleId();
+            indexed.transmissionId = model.getTransmission().getTransmissionId();
+            indexed.energySourceId = model.getEnergySource().getEnergySourceId();
+            models.put(modelId, indexed);
+            for (Dimension dimension : MODEL_DIMENSIONS) {
+                bitmap(modelBitmaps, dimension, indexed.valueOf(dimension)).set(modelId);
+            }
+            if (Boolean.TRUE.equals(model.getIsActive())) {
+                activeModels.set(modelId);
+            }
+            
+            // Brand, body style etc. of the model's products may have changed
+            BitSet productIds = productsByModel.get(modelId);
+            if (productIds != null) {
+                for (int id = productIds.nextSetBit(0); id >= 0; id = productIds.nextSetBit(id + 1)) {
+                    for (Dimension dimension : MODEL_DIMENSIONS) {
+                        bitmap(productBitmaps, dimension, indexed.valueOf(dimension)).set(id);
+                    }
+                }
+            }
+        }
+        
+        void removeModel(int modelId) {
+            IndexedModel existing = models.remove(modelId);
+            if (existing == null) {
+                return;
+            }
+            activeModels.clear(modelId);
+            for (Dimension dimension : MODEL_DIMENSIONS) {
+                clear(modelBitmaps, dimension, existing.valueOf(dimension), modelId);
+            }
+            BitSet productIds = productsByModel.get(modelId);
+            if (productIds != null) {
+                for (int id = productIds.nextSetBit(0); id >= 0; id = productIds.nextSetBit(id + 1)) {
+                    for (Dimension dimension : MODEL_DIMENSIONS) {
+                        clear(productBitmaps, dimension, existing.valueOf(dimension), id);
+                    }
+                }
+            }
+        }
+        
+        void putProduct(Product product) {
+            int productId = product.getProductId();
+            removeProduct(productId);
+            
+            CarModel model = product.getModel();
+            if (!models.containsKey(model.getModelId())) {
+                putModel(model);
+            }
+            
+            IndexedProduct indexed = new IndexedProduct();
+            indexed.modelId = model.getModelId();
+            indexed.colorId = product.getColor().getColorId();
+            indexed.packageTypeId = product.getPackageType().getPackageTypeId();
+            indexed.priceCents = toCents(product.getPrice());
+            indexed.inStock = product.getStock() != null && product.getStock() > 0;
+            products.put(productId, indexed);
+            
+            productsByModel.computeIfAbsent(indexed.modelId, k -> new BitSet()).set(productId);
+            IndexedModel indexedModel = models.get(indexed.modelId);
+            for (Dimension dimension : Dimension.values()) {
+                bitmap(productBitmaps, dimension, productValue(indexed, indexedModel, dimension)).set(productId);
+            }
+            if (indexed.inStock) {
+                inStock.set(productId);
+            }
+        }
+        
+        void removeProduct(int productId) {
+            IndexedProduct existing = products.remove(productId);
+            if (existing == null) {
+                return;
+            }
+            inStock.clear(productId);
+            BitSet modelProducts = productsByModel.get(existing.modelId);
+            if (modelProducts != null) {
+                modelProducts.clear(productId);
+            }
+            IndexedModel indexedModel = models.get(existing.modelId);
+            for (Dimension dimension : Dimension.values()) {
+                clear(productBitmaps, dimension, productValue(existing, indexedModel, dimension), productId);
+            }
+        }
+        
+        private static int productValue(IndexedProduct product, IndexedModel model, Dimension dimension) {
+            switch (dimension) {
+                case MODEL: return product.modelId;
+                case COLOR: return product.colorId;
+                case PACKAGE_TYPE: return product.packageTypeId;
+                case PRICE_BUCKET: return (int) (product.priceCents / PRICE_BUCKET_CENTS);
+                default: return model == null ? -1 : model.valueOf(dimension);
+            }
+        }
+        
+        private static BitSet bitmap(Map<Dimension, Map<Integer, BitSet>> bitmaps, Dimension dimension, int value) {
+            return bitmaps.get(dimension).computeIfAbsent(value, k -> new BitSet());
+        }
+        
+        private static void clear(Map<Dimension, Map<Integer, BitSet>> bitmaps, Dimension dimension, int value, int id) {
+            Map<Integer, BitSet> values = bitmaps.get(dimension);
+            BitSet bits = values.get(value);
+            if (bits != null) {
+                bits.clear(id);
+                if (bits.isEmpty()) {
+                    values.remove(value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.ImportReport;
+import com.example.backend.dto.ImportRowError;
+import com.example.backend.event.EntityChangedEvent;
+import com.example.backend.model.CarModel;
+import com.example.backend.model.Color;
+import com.example.backend.model.PackageType;
+import com.example.backend.model.Product;
+import com.example.backend.repository.CarModelRepository;
+import com.example.backend.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streaming bulk import of products from CSV or NDJSON.
+ * The input is read line by line, so the file is never held in memory. Valid rows are inserted
+ * in chunks, each chunk as one multi-row JDBC batch in its own transaction, and a bad row only
+ * fails itself.
+ */
+@Service
+public class ProductImportService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+    
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+    
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    // Integer digits that fit the DECIMAL(10,2) price column
+    private static final int MAX_PRICE_INTEGER_DIGITS = 8;
+    
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (model_id, color_id, package_type_id, price, stock, is_active, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private final ProductRepository productRepository;
+    private final CarModelRepository carModelRepository;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final InventoryCounters inventoryCounters;
+    private final StockMovementService stockMovementService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    
+    @Autowired
+    public ProductImportService(ProductRepository productRepository,
+                                CarModelRepository carModelRepository,
+                                ReferenceDataRegistry referenceDataRegistry,
+                                InventoryCounters inventoryCounters,
+                                StockMovementService stockMovementService,
+                                ApplicationEventPublisher eventPublisher,
+                                JdbcTemplate jdbcTemplate,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.carModelRepository = carModelRepository;
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.inventoryCounters = inventoryCounters;
+        this.stockMovementService = stockMovementService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Import products from a CSV or NDJSON stream.
+     * CSV needs a header row. Both formats accept the columns model, color, packageType, price,
+     * stock and isActive, where model, color and packageType may also be given as modelId,
+     * colorId and packageTypeId.
+     * @param input Product rows
+     * @param format csv or ndjson
+     * @param progress Called with the running report after every chunk, may be null
+     * @return Final import report
+     */
+    public ImportReport importProducts(InputStream input, String format, Consumer<ImportReport> progress)
+            throws IOException {
+        String normalizedFormat = format == null ? CSV : format.toLowerCase(Locale.ROOT);
+        if (!CSV.equals(normalizedFormat) && !NDJSON.equals(normalizedFormat)) {
+            throw new IllegalArgumentException("Unsupported import format: " + format);
+        }
+        
+        long start = System.currentTimeMillis();
+        ImportReport report = new ImportReport();
+        Map<String, List<CarModel>> modelsByName = loadModelsByName();
+        Set<Integer> modelIds = new HashSet<>();
+        modelsByName.values().forEach(models -> models.forEach(model -> modelIds.add(model.getModelId())));
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Iterator<RawRow> rows = CSV.equals(normalizedFormat) ? new CsvRows(reader) : new NdjsonRows(reader);
+            while (rows.hasNext()) {
+                RawRow raw = rows.next();
+                report.setProcessed(report.getProcessed() + 1);
+                try {
+                    chunk.add(resolve(raw, modelsByName, modelIds));
+                } catch (IllegalArgumentException e) {
+                    fail(report, raw.line, e.getMessage());
+                }
+                
+                if (chunk.size() == CHUNK_SIZE) {
+                    insertChunk(chunk, report);
+                    chunk.clear();
+                    if (progress != null) {
+                        progress.accept(report);
+                    }
+                }
+            }
+        }
+        
+        if (!chunk.isEmpty()) {
+            insertChunk(chunk, report);
+        }
+        report.setElapsedMs(System.currentTimeMillis() - start);
+        if (progress != null) {
+            progress.accept(report);
+        }
+        log.info("Imported {} of {} products in {} ms", report.getImported(), report.getProcessed(), report.getElapsedMs());
+        return report;
+    }
+    
+    /**
+     * Insert a chunk in one transaction. When the database rejects it, the chunk is split in
+     * halves and each half is tried again, so only the offending rows end up failed.
+     */
+    private void insertChunk(List<ImportRow> chunk, ImportReport report) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                List<Integer> productIds = insertProducts(chunk);
+                for (int i = 0; i < productIds.size(); i++) {
+                    stockMovementService.record(productIds.get(i), chunk.get(i).stock, StockMovementService.INITIAL);
+                }
+                
+                // Keep the indexes, caches and counters in step as if the rows were saved through JPA
+                for (Product product : productRepository.findWithDetailsByProductIdIn(productIds)) {
+                    if (Boolean.TRUE.equals(product.getIsActive())) {
+                        inventoryCounters.adjust(product.getModel().getModelId(), product.getStock());
+                    }
+                    eventPublisher.publishEvent(EntityChangedEvent.created(product));
+                }
+            });
+            report.setImported(report.getImported() + chunk.size());
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) {
+                fail(report, chunk.get(0).line, "Insert failed: " + e.getMessage());
+                return;
+            }
+            log.debug("Import chunk of {} rows failed, retrying it in halves", chunk.size(), e);
+            int middle = chunk.size() / 2;
+            insertChunk(chunk.subList(0, middle), report);
+            insertChunk(chunk.subList(middle, chunk.size()), report);
+        }
+    }
+    
+    private List<Integer> insertProducts(List<ImportRow> chunk) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (ImportRow row : chunk) {
+                    statement.setInt(1, row.modelId);
+                    statement.setInt(2, row.colorId);
+                    statement.setInt(3, row.packageTypeId);
+                    statement.setBigDecimal(4, row.price);
+                    statement.setInt(5, row.stock);
+                    statement.setBoolean(6, row.active);
+                    statement.setTimestamp(7, now);
+                    statement.setTimestamp(8, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                
+                // The driver sends the batch as multi-row INSERTs and still returns every generated key
+                List<Integer> productIds = new ArrayList<>(chunk.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        productIds.add(keys.getInt(1));
+                    }
+                }
+                return productIds;
+            }
+        });
+    }
+    
+    private ImportRow resolve(RawRow raw, Map<String, List<CarModel>> modelsByName, Set<Integer> modelIds) {
+        if (raw.error != null) {
+            throw new IllegalArgumentException(raw.error);
+        }
+        ImportRow row = new ImportRow();
+        row.line = raw.line;
+        row.modelId = resolveModel(raw.fields, modelsByName, modelIds);
+        row.colorId = resolveReference(raw.fields, "color", "colorId",
+                referenceDataRegistry.colors(), Color::getColorId);
+        row.packageTypeId = resolveReference(raw.fields, "packagetype", "packageTypeId",
+                referenceDataRegistry.packageTypes(), PackageType::getPackageTypeId);
+        
+        String price = raw.fields.get("price");
+        if (price == null || price.isBlank()) {
+            throw new IllegalArgumentException("Missing price");
+        }
+        try {
+            row.price = new BigDecimal(price.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price: " + price);
+        }
+        if (row.price.signum() < 0) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+        if (row.price.stripTrailingZeros().scale() > 2) {
+            throw new IllegalArgumentException("Price cannot have more than 2 decimals: " + price);
+        }
+        row.price = row.price.setScale(2);
+        if (row.price.precision() - row.price.scale() > MAX_PRICE_INTEGER_DIGITS) {
+            throw new IllegalArgumentException("Price is too large: " + price);
+        }
+        
+        String stock = raw.fields.get("stock");
+        try {
+            row.stock = stock == null || stock.isBlank() ? 0 : Integer.parseInt(stock.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid stock: " + stock);
+        }
+        if (row.stock < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative");
+        }
+        
+        String active = raw.fields.get("isactive");
+        row.active = active == null || active.isBlank() || Boolean.parseBoolean(active.trim());
+        return row;
+    }
+    
+    private Integer resolveModel(Map<String, String> fields, Map<String, List<CarModel>> modelsByName,
+                                 Set<Integer> modelIds) {
+        String modelId = fields.get("modelid");
+        if (modelId != null && !modelId.isBlank()) {
+            // An unknown ID would fail the foreign key of the whole chunk, so the row is rejected here
+            Integer parsed = parseId(modelId, "modelId");
+            if (!modelIds.contains(parsed)) {
+                throw new IllegalArgumentException("Unknown modelId: " + modelId);
+            }
+            return parsed;
+        }
+        String name = fields.get("model");
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Missing model");
+        }
+        List<CarModel> models = modelsByName.get(name.trim().toLowerCase(Locale.ROOT));
+        if (models == null) {
+            throw new IllegalArgumentException("Unknown model: " + name);
+        }
+        if (models.size() > 1) {
+            throw new IllegalArgumentException("Model name is ambiguous, use modelId: " + name);
+        }
+        return models.get(0).getModelId();
+    }
+    
+    private <T> Integer resolveReference(Map<String, String> fields, String nameKey, String idKey,
+                                         ReferenceDataRegistry.Table<T> table,
+                                         Function<T, Integer> idOf) {
+        String id = fields.get(idKey.toLowerCase(Locale.ROOT));
+        if (id != null && !id.isBlank()) {
+            Integer parsed = parseId(id, idKey);
+            if (table.findById(parsed).isEmpty()) {
+                throw new IllegalArgumentException("Unknown " + idKey + ": " + id);
+            }
+            return parsed;
+        }
+        String name = fields.get(nameKey);
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Missing " + nameKey);
+        }
+        return table.findByName(name.trim())
+                .map(idOf)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown " + nameKey + ": " + name));
+    }
+    
+    private static Integer parseId(String value, String field) {
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+    
+    private Map<String, List<CarModel>> loadModelsByName() {
+        Map<String, List<CarModel>> modelsByName = new HashMap<>();
+        for (CarModel model : carModelRepository.findAll()) {
+            modelsByName.computeIfAbsent(model.getModelName().toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                    .add(model);
+        }
+        return modelsByName;
+    }
+    
+    private static void fail(ImportReport report, long line, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ImportRowError(line, message));
+        }
+    }
+    
+    /**
+     * Split one CSV line, honouring double quotes and "" escapes
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+    
+    private static final class RawRow {
+        final long line;
+        // Keys are lower case column names
+        final Map<String, String> fields;
+        // Set when the line itself could not be parsed
+        final String error;
+        
+        RawRow(long line, Map<String, String> fields, String error) {
+            this.line = line;
+            this.fields = fields;
+            this.error = error;
+        }
+    }
+    
+    private static final class ImportRow {
+        long line;
+        Integer modelId;
+        Integer colorId;
+        Integer packageTypeId;
+        BigDecimal price;
+        int stock;
+        boolean active;
+    }
+    
+    /**
+     * Reads rows one line at a time, skipping blank lines
+     */
+    private abstract static class LineRows implements Iterator<RawRow> {
+        private final BufferedReader reader;
+        private long lineNumber = 0;
+        private RawRow next;
+        
+        LineRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+        
+        abstract RawRow parse(long line, String text);
+        
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                String text;
+                try {
+                    text = reader.readLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (text == null) {
+                    return false;
+                }
+                lineNumber++;
+                if (!text.isBlank()) {
+                    next = parse(lineNumber, text);
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        public RawRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            RawRow row = next;
+            next = null;
+            return row;
+        }
+    }
+    
+    private static final class CsvRows extends LineRows {
+        private List<String> header;
+        
+        CsvRows(BufferedReader reader) {
+            super(reader);
+        }
+        
+        @Override
+        RawRow parse(long line, String text) {
+            List<String> values = splitCsvLine(text);
+            if (header == null) {
+                header = new ArrayList<>();
+                for (String column : values) {
+                    header.add(column.trim().replace("\uFEFF", "").toLowerCase(Locale.ROOT));
+                }
+                return null;
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                fields.put(header.get(i), values.get(i));
+            }
+            return new RawRow(line, fields, null);
+        }
+    }
+    
+    private final class NdjsonRows extends LineRows {
+        NdjsonRows(BufferedReader reader) {
+            super(reader);
+        }
+        
+        @Override
+        RawRow parse(long line, String text) {
+            Map<String, String> fields = new HashMap<>();
+            try {
+                JsonNode node = objectMapper.readTree(text);
+                if (!node.isObject()) {
+                    return new RawRow(line, fields, "Expected a JSON object");
+                }
+                node.fields().forEachRemaining(field -> fields.put(
+                        field.getKey().toLowerCase(Locale.ROOT),
+                        field.getValue().isNull() ? null : field.getValue().asText()));
+            } catch (JsonProcessingException e) {
+                return new RawRow(line, fields, "Invalid JSON: " + e.getOriginalMessage());
+            }
+            return new RawRow(line, fields, null);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.RatingSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rating count, sum and star histogram per product.
+ * The totals live in the ProductRatings table and are changed only by relative upserts written in
+ * the same transaction as the comment change, then mirrored into memory after commit, so showing
+ * ratings for a whole page of products needs no query at all. Rows changed by other instances are
+ * picked up by periodically re-reading the rows updated since the previous read.
+ */
+@Service
+public class ProductRatingService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductRatingService.class);
+    
+    private static final String UPSERT_RATING_SQL =
+            "INSERT INTO product_ratings (product_id, rating_count, rating_sum, stars1, stars2, stars3, stars4, stars5, " +
+            "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE rating_count = rating_count + VALUES(rating_count), " +
+            "rating_sum = rating_sum + VALUES(rating_sum), stars1 = stars1 + VALUES(stars1), " +
+            "stars2 = stars2 + VALUES(stars2), stars3 = stars3 + VALUES(stars3), stars4 = stars4 + VALUES(stars4), " +
+            "stars5 = stars5 + VALUES(stars5), updated_at = VALUES(updated_at)";
+    private static final String SEED_RATINGS_SQL =
+            "INSERT INTO product_ratings (product_id, rating_count, rating_sum, stars1, stars2, stars3, stars4, stars5, " +
+            "updated_at) SELECT c.product_id, COUNT(*), SUM(c.rating), SUM(c.rating = 1), SUM(c.rating = 2), " +
+            "SUM(c.rating = 3), SUM(c.rating = 4), SUM(c.rating = 5), ? FROM comments c " +
+            "WHERE c.is_approved = true " +
+            "AND NOT EXISTS (SELECT 1 FROM product_ratings r WHERE r.product_id = c.product_id) " +
+            "GROUP BY c.product_id";
+    private static final String SELECT_RATINGS_SQL =
+            "SELECT product_id, rating_count, rating_sum, stars1, stars2, stars3, stars4, stars5 FROM product_ratings";
+    private static final int RELOAD_CHUNK_SIZE = 1000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration refreshOverlap;
+    
+    private final ConcurrentHashMap<Integer, Rating> ratings = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+    
+    // Products merged while the initial load runs; their rows are read again once it finishes
+    private volatile Set<Integer> touchedDuringLoad;
+    // Start of the last read, rows updated after it (less the overlap) are read again
+    private volatile LocalDateTime refreshedFrom;
+    
+    @Autowired
+    public ProductRatingService(JdbcTemplate jdbcTemplate,
+                                @Value("${rating.refresh-overlap-seconds:60}") long refreshOverlapSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.refreshOverlap = Duration.ofSeconds(refreshOverlapSeconds);
+    }
+    
+    /**
+     * Whether the ratings have been loaded
+     * @return True once the initial load has finished
+     */
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Products whose comments were approved before the summary table existed start from one
+     * aggregate over their comments, then every rating is loaded into memory.
+     * A change merged while a row is being read may or may not be part of what was read, so the
+     * products changed during the load are read again afterwards instead of trusting either.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        int seeded = jdbcTemplate.update(SEED_RATINGS_SQL, Timestamp.valueOf(LocalDateTime.now()));
+        if (seeded > 0) {
+            log.info("Seeded ratings for {} products", seeded);
+        }
+        
+        touchedDuringLoad = ConcurrentHashMap.newKeySet();
+        LocalDateTime loadStartedAt = LocalDateTime.now();
+        jdbcTemplate.query(SELECT_RATINGS_SQL, rs -> {
+            ratings.put(rs.getInt(1), readRating(rs));
+        });
+        
+        Set<Integer> touched = touchedDuringLoad;
+        touchedDuringLoad = null;
+        reload(new ArrayList<>(touched));
+        refreshedFrom = loadStartedAt;
+        ready = true;
+        log.info("Ratings loaded for {} products", ratings.size());
+    }
+    
+    /**
+     * Read the rows changed since the previous read, including changes written by other instances.
+     * The overlap covers transactions that stamped updated_at before the previous read but committed
+     * after it, and also settles any merge that raced with a read.
+     */
+    @Scheduled(fixedDelayString = "${rating.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        Timestamp since = Timestamp.valueOf(refreshedFrom.minus(refreshOverlap));
+        jdbcTemplate.query(SELECT_RATINGS_SQL + " WHERE updated_at >= ?", rs -> {
+            ratings.put(rs.getInt(1), readRating(rs));
+        }, since);
+        refreshedFrom = startedAt;
+    }
+    
+    /**
+     * Add a rating change to a batch of changes
+     * @param deltas Star count changes per product
+     * @param productId Product ID
+     * @param rating Star rating, 1 to 5
+     * @param change 1 when a comment with this rating becomes visible, -1 when it goes away
+     */
+    public static void addDelta(Map<Integer, int[]> deltas, Integer productId, int rating, int change) {
+        deltas.computeIfAbsent(productId, id -> new int[5])[rating - 1] += change;
+    }
+    
+    /**
+     * Apply star count changes with one batched upsert. Inside a transaction the upsert is part of
+     * the transaction and memory follows after commit, otherwise both happen immediately.
+     * @param deltas Star count changes per product
+     */
+    public void apply(Map<Integer, int[]> deltas) {
+        // Upsert in product order so concurrent batches lock rows in the same order
+        Map<Integer, int[]> changes = new TreeMap<>();
+        deltas.forEach((productId, stars) -> {
+            for (int change : stars) {
+                if (change != 0) {
+                    changes.put(productId, stars.clone());
+                    break;
+                }
+            }
+        });
+        if (changes.isEmpty()) {
+            return;
+        }
+        
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        changes.forEach((productId, stars) -> {
+            Rating delta = Rating.EMPTY.plus(stars);
+            rows.add(new Object[]{productId, delta.count, delta.sum,
+                    stars[0], stars[1], stars[2], stars[3], stars[4], now});
+        });
+        jdbcTemplate.batchUpdate(UPSERT_RATING_SQL, rows);
+        
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            merge(changes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                merge(changes);
+            }
+        });
+    }
+    
+    /**
+     * Drop the ratings of a removed product once the current transaction commits
+     * @param productId Product ID
+     */
+    public void remove(Integer productId) {
+        jdbcTemplate.update("DELETE FROM product_ratings WHERE product_id = ?", productId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ratings.remove(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ratings.remove(productId);
+            }
+        });
+    }
+    
+    /**
+     * Get the number of approved ratings of a product
+     * @param productId Product ID
+     * @return Rating count, 0 when the product has none
+     */
+    public int getRatingCount(Integer productId) {
+        Rating rating = ratings.get(productId);
+        return rating == null ? 0 : rating.count;
+    }
+    
+    /**
+     * Get the average approved rating of a product
+     * @param productId Product ID
+     * @return Average rating, null when the product has none
+     */
+    public Double getAverageRating(Integer productId) {
+        Rating rating = ratings.get(productId);
+        return rating == null || rating.count == 0 ? null : (double) rating.sum / rating.count;
+    }
+    
+    /**
+     * Get the rating totals and star histogram of a product
+     * @param productId Product ID
+     * @return Rating summary
+     */
+    public RatingSummary getRating(Integer productId) {
+        Rating rating = ratings.getOrDefault(productId, Rating.EMPTY);
+        Map<Integer, Integer> stars = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            stars.put(i + 1, rating.stars[i]);
+        }
+        return new RatingSummary(productId, rating.count, getAverageRating(productId), stars);
+    }
+    
+    private void merge(Map<Integer, int[]> changes) {
+        changes.forEach((productId, stars) -> ratings.merge(productId, Rating.EMPTY.plus(stars),
+                (current, delta) -> current.plus(delta.stars)));
+        Set<Integer> touched = touchedDuringLoad;
+        if (touched != null) {
+            touched.addAll(changes.keySet());
+        }
+    }
+    
+    private void reload(List<Integer> productIds) {
+        for (int from = 0; from < productIds.size(); from += RELOAD_CHUNK_SIZE) {
+            List<Integer> chunk = productIds.subList(from, Math.min(from + RELOAD_CHUNK_SIZE, productIds.size()));
+            Set<Integer> missing = new HashSet<>(chunk);
+            jdbcTemplate.query(SELECT_RATINGS_SQL + " WHERE product_id IN (" + SqlPlaceholders.of(chunk.size()) + ")",
+                    rs -> {
+                        missing.remove(rs.getInt(1));
+                        ratings.put(rs.getInt(1), readRating(rs));
+                    }, chunk.toArray());
+            missing.forEach(ratings::remove);
+        }
+    }
+    
+    private static Rating readRating(ResultSet rs) throws SQLException {
+        int[] stars = new int[5];
+        for (int i = 0; i < 5; i++) {
+            stars[i] = rs.getInt(4 + i);
+        }
+        return new Rating(rs.getInt(2), rs.getInt(3), stars);
+    }
+    
+    // Immutable, replaced on every change so readers never see a half-applied update
+    private static final class Rating {
+        
+        private static final Rating EMPTY = new Rating(0, 0, new int[5]);
+        
+        private final int count;
+        private final int sum;
+        private final int[] stars;
+        
+        private Rating(int count, int sum, int[] stars) {
+            this.count = count;
+            this.sum = sum;
+            this.stars = stars;
+        }
+        
+        private Rating plus(int[] delta) {
+            int[] merged = stars.clone();
+            int count = this.count;
+            int sum = this.sum;
+            for (int i = 0; i < 5; i++) {
+                merged[i] += delta[i];
+                count += delta[i];
+                sum += delta[i] * (i + 1);
+            }
+            return new Rating(count, sum, merged);
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.CursorPage;
+import com.example.backend.dto.CustomerSummary;
+import com.example.backend.dto.PriceBucket;
+import com.example.backend.dto.ProductFilterRequest;
+import com.example.backend.dto.ProductFilterResult;
+import com.example.backend.dto.ProductSummary;
+import com.example.backend.dto.RatingSummary;
 import com.example.backend.model.*;
 import com.example.backend.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
@@ -23,6 +39,24 @@ public class ProductService {
     private final CommentRepository commentRepository;
     private final PriceHistoryRepository priceHistoryRepository;
     private final CurrencyService currencyService;
+    private final ProductFacetIndex productFacetIndex;
+    private final InventoryCounters inventoryCounters;
+    private final ProductCache productCache;
+    private final StockReservationService stockReservationService;
+    private final StockMovementService stockMovementService;
+    private final PriceSeriesStore priceSeriesStore;
+    private final CurrencyPriceView currencyPriceView;
+    private final CustomerRepository customerRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductBuyerIndex productBuyerIndex;
+    private final OutboxService outboxService;
+    private final ProductRatingService productRatingService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
     
     @Autowired
     public ProductService(
@@ -32,7 +66,19 @@ public class ProductService {
             PackageTypeRepository packageTypeRepository,
             CommentRepository commentRepository,
             PriceHistoryRepository priceHistoryRepository,
-            CurrencyService currencyService) {
+            CurrencyService currencyService,
+            ProductFacetIndex productFacetIndex,
+            InventoryCounters inventoryCounters,
+            ProductCache productCache,
+            StockReservationService stockReservationService,
+            StockMovementService stockMovementService,
+            PriceSeriesStore priceSeriesStore,
+            CurrencyPriceView currencyPriceView,
+            CustomerRepository customerRepository,
+            OrderItemRepository orderItemRepository,
+            ProductBuyerIndex productBuyerIndex,
+            OutboxService outboxService,
+            ProductRatingService productRatingService) {
         this.productRepository = productRepository;
         this.carModelRepository = carModelRepository;
         this.colorRepository = colorRepository;
@@ -40,6 +86,18 @@ public class ProductService {
         this.commentRepository = commentRepository;
         this.priceHistoryRepository = priceHistoryRepository;
         this.currencyService = currencyService;
+        this.productFacetIndex = productFacetIndex;
+        this.inventoryCounters = inventoryCounters;
+        this.productCache = productCache;
+        this.stockReservationService = stockReservationService;
+        this.stockMovementService = stockMovementService;
+        this.priceSeriesStore = priceSeriesStore;
+        this.currencyPriceView = currencyPriceView;
+        this.customerRepository = customerRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productBuyerIndex = productBuyerIndex;
+        this.outboxService = outboxService;
+        this.productRatingService = productRatingService;
     }
     
     /**
@@ -50,6 +108,131 @@ public class ProductService {
         return productRepository.findByIsActiveTrue();
     }
     
+    /**
+     * Get a page of active products ordered by product ID (keyset pagination)
+     * @param afterId Last product ID of the previous page, null for the first page
+     * @param size Page size
+     * @return Page of product summaries with the cursor for the next page
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductSummary> getActiveProductPage(Integer afterId, Integer size) {
+        int pageSize = pageSize(size);
+        int cursor = afterId == null ? 0 : afterId;
+        
+        List<Product> rows = productRepository.findActiveProductsAfter(cursor, KeysetCursor.withLookAhead(pageSize));
+        boolean hasMore = KeysetCursor.hasMore(rows, pageSize);
+        
+        List<ProductSummary> items = KeysetCursor.page(rows, pageSize).stream()
+                .map(this::toSummary)
+                .map(this::withRating)
+                .collect(Collectors.toList());
+        Integer nextCursor = hasMore ? items.get(items.size() - 1).getProductId() : null;
+        
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+    
+    /**
+     * Stream all active products one by one without loading the whole catalog
+     * @param consumer Callback receiving each product summary
+     */
+    @Transactional(readOnly = true)
+    public void streamActiveProducts(Consumer<ProductSummary> consumer) {
+        try (Stream<Product> products = productRepository.streamActiveProducts()) {
+            products.forEach(product -> {
+                consumer.accept(withRating(toSummary(product)));
+                // Detach so the persistence context does not grow with the catalog
+                entityManager.detach(product);
+            });
+        }
+    }
+    
+    /**
+     * Filter available products and count facets for every filter dimension
+     * @param request Filter values, price range in the requested currency, sort order and page cursor
+     * @return Page of matching products, total count and facet counts
+     */
+    @Transactional(readOnly = true)
+    public ProductFilterResult filterProducts(ProductFilterRequest request) {
+        Boolean descending = priceSortDirection(request.getSort());
+        String currencyCode = request.getCurrency();
+        if (currencyCode != null && !currencyService.getAvailableCurrencies().containsKey(currencyCode)) {
+            throw new IllegalArgumentException("Invalid currency code");
+        }
+        
+        boolean converted = currencyCode != null || descending != null;
+        if (!productFacetIndex.isReady() || (converted && !currencyPriceView.isReady())) {
+            return filterProductsFromDatabase(request, descending);
+        }
+        
+        Map<ProductFacetIndex.Dimension, Integer> filters = new EnumMap<>(ProductFacetIndex.Dimension.class);
+        filters.put(ProductFacetIndex.Dimension.MODEL, request.getModelId());
+        filters.put(ProductFacetIndex.Dimension.COLOR, request.getColorId());
+        filters.put(ProductFacetIndex.Dimension.PACKAGE_TYPE, request.getPackageTypeId());
+        filters.put(ProductFacetIndex.Dimension.BRAND, request.getBrandId());
+        filters.put(ProductFacetIndex.Dimension.BODY_STYLE, request.getBodyStyleId());
+        filters.put(ProductFacetIndex.Dimension.TRANSMISSION, request.getTransmissionId());
+        filters.put(ProductFacetIndex.Dimension.ENERGY_SOURCE, request.getEnergySourceId());
+        
+        // Bounds in another currency are matched against the precomputed converted prices
+        ProductFacetIndex.FacetResult facetResult = currencyCode == null
+                ? productFacetIndex.filterProducts(filters, request.getMinPrice(), request.getMaxPrice())
+                : productFacetIndex.filterProducts(filters,
+                        currencyPriceView.priceRange(currencyCode, request.getMinPrice(), request.getMaxPrice()));
+        
+        BitSet matches = facetResult.getMatches();
+        int pageSize = pageSize(request.getSize());
+        List<Integer> pageIds;
+        Object nextCursor = null;
+        if (descending == null) {
+            pageIds = nextMatches(matches, afterProductId(request.getAfter()), pageSize + 1);
+            if (pageIds.size() > pageSize) {
+                pageIds = pageIds.subList(0, pageSize);
+                nextCursor = pageIds.get(pageSize - 1);
+            }
+        } else {
+            CurrencyPriceView.PricePage page = currencyPriceView.sortedPage(
+                    currencyCode == null ? currencyService.getBaseCurrency() : currencyCode,
+                    matches, descending, afterPrice(request.getAfter()), pageSize + 1);
+            pageIds = page.productIds;
+            if (pageIds.size() > pageSize) {
+                pageIds = pageIds.subList(0, pageSize);
+                nextCursor = KeysetCursor.encode(page.cents.get(pageSize - 1), pageIds.get(pageSize - 1));
+            }
+        }
+        
+        List<ProductSummary> items = getProductSummaries(pageIds);
+        if (currencyCode != null) {
+            // Cached summaries are shared, so the converted price goes on a copy
+            items = items.stream()
+                    .map(summary -> withConvertedPrice(summary, currencyCode,
+                            currencyPriceView.price(currencyCode, summary.getProductId())))
+                    .collect(Collectors.toList());
+        }
+        
+        Map<String, Map<Integer, Integer>> facets = new HashMap<>();
+        facetResult.getFacets().forEach((dimension, counts) -> facets.put(dimension.name(), counts));
+        
+        return new ProductFilterResult(items, matches.cardinality(), nextCursor, facets);
+    }
+    
+    /**
+     * Filter active car models
+     * @param brandId Brand ID
+     * @param bodyStyleId Body style ID
+     * @param transmissionId Transmission ID
+     * @param energySourceId Energy source ID
+     * @return List of matching car models
+     */
+    public List<CarModel> filterCarModels(Integer brandId, Integer bodyStyleId,
+                                          Integer transmissionId, Integer energySourceId) {
+        if (!productFacetIndex.isReady()) {
+            return carModelRepository.filterModels(brandId, bodyStyleId, transmissionId, energySourceId);
+        }
+        
+        List<Integer> modelIds = productFacetIndex.filterModels(brandId, bodyStyleId, transmissionId, energySourceId);
+        return carModelRepository.findAllById(modelIds);
+    }
+    
     /**
      * Get product with price in specific currency
      * @param productId Product ID
@@ -57,13 +240,19 @@ public class ProductService {
      * @return Product with price in target currency
      */
     public Map<String, Object> getProductWithCurrency(Integer productId, String currencyCode) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+        ProductSummary product = productCache.getOrLoad(productId, id ->
+                productRepository.findWithDetailsByProductIdIn(List.of(id)).stream()
+                        .findFirst()
+                        .map(this::toSummary)
+                        .orElse(null));
+        if (product == null) {
+            throw new IllegalArgumentException("Product not found");
+        }
         
         BigDecimal convertedPrice = currencyService.convertPrice(product.getPrice(), currencyCode);
         
         Map<String, Object> result = new HashMap<>();
-        result.put("product", product);
+        result.put("product", withRating(product));
         result.put("convertedPrice", convertedPrice);
         result.put("currencyCode", currencyCode);
         
@@ -71,22 +260,108 @@ public class ProductService {
     }
     
     /**
-     * Find all customers who ordered a specific product
+     * Get product summaries in the given order, reading through the product cache
+     * @param productIds Product IDs
+     * @return Summaries of the products that exist
+     */
+    public List<ProductSummary> getProductSummaries(List<Integer> productIds) {
+        Map<Integer, ProductSummary> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer productId : productIds) {
+            ProductSummary cached = productCache.get(productId);
+            if (cached != null) {
+                found.put(productId, cached);
+            } else {
+                missing.add(productId);
+            }
+        }
+        
+        if (!missing.isEmpty()) {
+            // One query for every cache miss on the page
+            long invalidationsBeforeLoad = productCache.invalidationCount();
+            for (Product product : productRepository.findWithDetailsByProductIdIn(missing)) {
+                ProductSummary summary = toSummary(product);
+                found.put(product.getProductId(), summary);
+                productCache.put(product.getProductId(), summary, invalidationsBeforeLoad);
+            }
+        }
+        
+        return productIds.stream()
+                .map(found::get)
+                .filter(summary -> summary != null)
+                .map(this::withRating)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Get the rating totals and star histogram of a product
      * @param productId Product ID
-     * @return List of customers
+     * @return Rating summary
      */
-    public List<Customer> getCustomersWhoOrderedProduct(Integer productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+    public RatingSummary getProductRating(Integer productId) {
+        if (!productRepository.existsById(productId)) {
+            throw new IllegalArgumentException("Product not found");
+        }
+        return productRatingService.getRating(productId);
+    }
+    
+    /**
+     * Get product cache metrics
+     * @return Cache statistics
+     */
+    public Map<String, Object> getProductCacheStats() {
+        return productCache.getStats();
+    }
+    
+    /**
+     * Find the customers who ordered a specific product, one page at a time
+     * @param productId Product ID
+     * @param afterUserId Last user ID of the previous page, or null for the first page
+     * @param size Page size
+     * @return Page of distinct customers in user ID order
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CustomerSummary> getCustomersWhoOrderedProduct(Integer productId, Integer afterUserId,
+                                                                     Integer size) {
+        if (!productRepository.existsById(productId)) {
+            throw new IllegalArgumentException("Product not found");
+        }
         
-        // Get all orders containing this product
-        List<OrderItem> orderItems = product.getOrderItems();
+        int pageSize = pageSize(size);
+        int cursor = afterUserId == null ? 0 : afterUserId;
+        List<Object[]> rows;
+        if (productBuyerIndex.isReady()) {
+            // The index yields the page of IDs, one primary key lookup loads the names
+            int[] userIds = productBuyerIndex.getBuyers(productId, cursor, pageSize + 1);
+            rows = userIds.length == 0 ? List.of() : customerRepository.findSummariesByUserIdIn(
+                    Arrays.stream(userIds).boxed().collect(Collectors.toList()));
+        } else {
+            rows = orderItemRepository.findBuyersAfter(productId, cursor, KeysetCursor.withLookAhead(pageSize));
+        }
         
-        // Extract unique customers from these orders
-        return orderItems.stream()
-                .map(item -> item.getOrder().getCustomer())
-                .distinct()
+        boolean hasMore = KeysetCursor.hasMore(rows, pageSize);
+        List<CustomerSummary> items = KeysetCursor.page(rows, pageSize).stream()
+                .map(row -> new CustomerSummary((Integer) row[0], (String) row[1], (String) row[2], (String) row[3]))
                 .collect(Collectors.toList());
+        Integer nextCursor = hasMore ? items.get(items.size() - 1).getUserId() : null;
+        
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+    
+    /**
+     * Count the distinct customers who ordered a specific product
+     * @param productId Product ID
+     * @return Number of customers
+     */
+    @Transactional(readOnly = true)
+    public long countCustomersWhoOrderedProduct(Integer productId) {
+        if (!productRepository.existsById(productId)) {
+            throw new IllegalArgumentException("Product not found");
+        }
+        
+        return productBuyerIndex.isReady()
+                ? productBuyerIndex.countBuyers(productId)
+                : orderItemRepository.countBuyers(productId);
     }
     
     /**
@@ -103,9 +378,17 @@ public class ProductService {
         
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found"));
-                
+        
+        int oldStock = product.getStock();
         product.setStock(newStock);
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        
+        if (Boolean.TRUE.equals(savedProduct.getIsActive())) {
+            inventoryCounters.adjust(savedProduct.getModel().getModelId(), newStock - oldStock);
+        }
+        stockReservationService.adjustAvailable(productId, newStock - oldStock);
+        stockMovementService.record(productId, newStock - oldStock, StockMovementService.ADJUSTMENT);
+        return savedProduct;
     }
     
     /**
@@ -131,7 +414,7 @@ public class ProductService {
                                      String currencyCode, String changedBy) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found"));
-                
+        
         BigDecimal oldPrice = product.getPrice();
         
         // Convert price if currency is not base currency
@@ -152,6 +435,9 @@ public class ProductService {
         priceHistory.setCurrencyCode(currencyService.getBaseCurrency());
         priceHistory.setChangedBy(changedBy);
         priceHistoryRepository.save(priceHistory);
+        priceSeriesStore.append(productId, priceHistory.getChangeDate(), newPrice);
+        outboxService.publish(OutboxService.PRODUCT_PRICE_CHANGED, productId,
+                priceChange(productId, oldPrice, newPrice));
         
         // Update product price
         product.setPrice(newPrice);
@@ -172,6 +458,13 @@ public class ProductService {
         
         // Delete product
         productRepository.delete(product);
+        
+        if (Boolean.TRUE.equals(product.getIsActive())) {
+            inventoryCounters.adjust(product.getModel().getModelId(), -product.getStock());
+        }
+        stockReservationService.evict(productId);
+        productRatingService.remove(productId);
+        stockMovementService.record(productId, -product.getStock(), StockMovementService.REMOVAL);
     }
     
     /**
@@ -179,22 +472,35 @@ public class ProductService {
      * @return Map of car model to total stock
      */
     public Map<CarModel, Integer> getCarModelInventorySummary() {
-        List<CarModel> carModels = carModelRepository.findByIsActiveTrue();
-        Map<CarModel, Integer> inventory = new HashMap<>();
+        if (inventoryCounters.isReady()) {
+            return inventoryCounters.getModelTotals();
+        }
         
-        for (CarModel model : carModels) {
-            // Get all products for this model
-            List<Product> products = productRepository.findByModel(model);
-            
-            // Sum up stock quantities
-            int totalStock = products.stream()
-                    .filter(Product::getIsActive)
-                    .mapToInt(Product::getStock)
-                    .sum();
-                    
-            inventory.put(model, totalStock);
+        // Counters are still loading, aggregate in the database instead
+        Map<Integer, Integer> totals = new HashMap<>();
+        for (Object[] row : productRepository.sumActiveStockByModel()) {
+            totals.put((Integer) row[0], row[1] == null ? 0 : ((Number) row[1]).intValue());
         }
         
+        Map<CarModel, Integer> inventory = new HashMap<>();
+        for (CarModel model : carModelRepository.findByIsActiveTrue()) {
+            inventory.put(model, totals.getOrDefault(model.getModelId(), 0));
+        }
+        return inventory;
+    }
+    
+    /**
+     * Get brand inventory summary
+     * @return Map of brand to total stock
+     */
+    public Map<Brand, Long> getBrandInventorySummary() {
+        if (inventoryCounters.isReady()) {
+            return inventoryCounters.getBrandTotals();
+        }
+        
+        Map<Brand, Long> inventory = new HashMap<>();
+        getCarModelInventorySummary().forEach((model, total) ->
+                inventory.merge(model.getBrand(), total.longValue(), Long::sum));
         return inventory;
     }
     
@@ -205,7 +511,15 @@ public class ProductService {
      */
     @Transactional
     public Product addProduct(Product product) {
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        
+        if (Boolean.TRUE.equals(savedProduct.getIsActive()) && savedProduct.getStock() != null) {
+            inventoryCounters.adjust(savedProduct.getModel().getModelId(), savedProduct.getStock());
+        }
+        if (savedProduct.getStock() != null) {
+            stockMovementService.record(savedProduct.getProductId(), savedProduct.getStock(), StockMovementService.INITIAL);
+        }
+        return savedProduct;
     }
     
     /**
@@ -216,4 +530,178 @@ public class ProductService {
     public List<PriceHistory> getProductPriceHistory(Integer productId) {
         return priceHistoryRepository.findPriceHistoryByProductId(productId);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Get product price history downsampled into time buckets
+     * @param productId Product ID
+     * @param from Range start, null for the first price change
+     * @param to Range end, null for now
+     * @param resolution Bucket width (15m, 1h, 1d, 1w or ISO-8601), null for about 200 buckets
+     * @return Open, high, low, close and average price per bucket
+     */
+    public List<PriceBucket> getPriceSeries(Integer productId, LocalDateTime from, LocalDateTime to,
+                                            String resolution) {
+        return priceSeriesStore.query(productId, from, to, resolution);
+    }
+    
+    private ProductSummary toSummary(Product product) {
+        CarModel model = product.getModel();
+        return ProductSummary.builder()
+                .productId(product.getProductId())
+                .modelId(model.getModelId())
+                .modelName(model.getModelName())
+                .brandId(model.getBrand().getBrandId())
+                .brandName(model.getBrand().getBrandName())
+                .colorId(product.getColor().getColorId())
+                .colorName(product.getColor().getColorName())
+                .packageTypeId(product.getPackageType().getPackageTypeId())
+                .packageTypeName(product.getPackageType().getPackageTypeName())
+                .price(product.getPrice())
+                .stock(product.getStock())
+                .isActive(product.getIsActive())
+                .build();
+    }
+    
+    // Used while the facet index is still being built after startup
+    private ProductFilterResult filterProductsFromDatabase(ProductFilterRequest request, Boolean descending) {
+        String currencyCode = request.getCurrency();
+        // Bounds in another currency can only be checked after conversion
+        BigDecimal minPrice = currencyCode == null ? request.getMinPrice() : null;
+        BigDecimal maxPrice = currencyCode == null ? request.getMaxPrice() : null;
+        Map<Integer, BigDecimal> prices = new HashMap<>();
+        
+        List<Product> matches = productRepository.filterProducts(
+                request.getModelId(), request.getColorId(), request.getPackageTypeId(),
+                minPrice, maxPrice).stream()
+                .filter(p -> request.getBrandId() == null
+                        || request.getBrandId().equals(p.getModel().getBrand().getBrandId()))
+                .filter(p -> request.getBodyStyleId() == null
+                        || request.getBodyStyleId().equals(p.getModel().getBodyStyle().getBodyStyleId()))
+                .filter(p -> request.getTransmissionId() == null
+                        || request.getTransmissionId().equals(p.getModel().getTransmission().getTransmissionId()))
+                .filter(p -> request.getEnergySourceId() == null
+                        || request.getEnergySourceId().equals(p.getModel().getEnergySource().getEnergySourceId()))
+                .peek(p -> prices.put(p.getProductId(), currencyCode == null
+                        ? p.getPrice() : currencyService.convertPrice(p.getPrice(), currencyCode)))
+                .filter(p -> request.getMinPrice() == null
+                        || prices.get(p.getProductId()).compareTo(request.getMinPrice()) >= 0)
+                .filter(p -> request.getMaxPrice() == null
+                        || prices.get(p.getProductId()).compareTo(request.getMaxPrice()) <= 0)
+                .sorted(productOrder(prices, descending))
+                .collect(Collectors.toList());
+        
+        Stream<Product> remaining = matches.stream();
+        if (descending == null) {
+            Integer after = afterProductId(request.getAfter());
+            if (after != null) {
+                remaining = remaining.filter(p -> p.getProductId() > after);
+            }
+        } else {
+            KeysetCursor<Long> after = afterPrice(request.getAfter());
+            if (after != null) {
+                remaining = remaining.filter(p -> {
+                    int order = Long.compare(FixedPointRates.roundToMinor(prices.get(p.getProductId())), after.value());
+                    order = order != 0 ? order : Integer.compare(p.getProductId(), after.id());
+                    return descending ? order < 0 : order > 0;
+                });
+            }
+        }
+        
+        int pageSize = pageSize(request.getSize());
+        List<ProductSummary> items = remaining
+                .limit(pageSize + 1)
+                .map(p -> currencyCode == null ? toSummary(p)
+                        : withConvertedPrice(toSummary(p), currencyCode, prices.get(p.getProductId())))
+                .map(this::withRating)
+                .collect(Collectors.toList());
+        Object nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            Integer lastId = items.get(pageSize - 1).getProductId();
+            nextCursor = descending == null ? lastId
+                    : KeysetCursor.encode(FixedPointRates.roundToMinor(prices.get(lastId)), lastId);
+        }
+        
+        return new ProductFilterResult(items, matches.size(), nextCursor, new HashMap<>());
+    }
+    
+    private static Comparator<Product> productOrder(Map<Integer, BigDecimal> prices, Boolean descending) {
+        if (descending == null) {
+            return Comparator.comparing(Product::getProductId);
+        }
+        Comparator<Product> byPrice = Comparator.<Product, BigDecimal>comparing(p -> prices.get(p.getProductId()))
+                .thenComparing(Product::getProductId);
+        return descending ? byPrice.reversed() : byPrice;
+    }
+    
+    // Matches are ordered by product ID, so the cursor is simply the next set bit
+    private static List<Integer> nextMatches(BitSet matches, Integer after, int limit) {
+        List<Integer> ids = new ArrayList<>(limit);
+        int id = matches.nextSetBit(after == null ? 0 : after + 1);
+        while (id >= 0 && ids.size() < limit) {
+            ids.add(id);
+            id = matches.nextSetBit(id + 1);
+        }
+        return ids;
+    }
+    
+    // Cursor of product ID ordered pages, the last product ID of the previous page
+    private static Integer afterProductId(String after) {
+        if (after == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(after);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+    
+    // Cursor of price ordered pages, converted cents and product ID of the last product of the previous page
+    private static KeysetCursor<Long> afterPrice(String after) {
+        return after == null ? null : KeysetCursor.decode(after, Long::parseLong);
+    }
+    
+    // Null keeps product ID order, otherwise true for the highest price first
+    private static Boolean priceSortDirection(String sort) {
+        if (sort == null) {
+            return null;
+        }
+        switch (sort) {
+            case "priceAsc":
+                return false;
+            case "priceDesc":
+                return true;
+            default:
+                throw new IllegalArgumentException("Invalid sort order");
+        }
+    }
+    
+    private static ProductSummary withConvertedPrice(ProductSummary summary, String currencyCode, BigDecimal price) {
+        return summary.toBuilder()
+                .convertedPrice(price)
+                .currencyCode(currencyCode)
+                .build();
+    }
+    
+    // Ratings change independently of the cached summary, so they are read from memory on the way out
+    private ProductSummary withRating(ProductSummary summary) {
+        return summary.toBuilder()
+                .averageRating(productRatingService.getAverageRating(summary.getProductId()))
+                .ratingCount(productRatingService.getRatingCount(summary.getProductId()))
+                .build();
+    }
+    
+    private static int pageSize(Integer size) {
+        return (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+    }
+    
+    // Outbox payload shared with the bulk price update
+    static Map<String, Object> priceChange(Integer productId, BigDecimal oldPrice, BigDecimal newPrice) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("productId", productId);
+        payload.put("oldPrice", oldPrice);
+        payload.put("newPrice", newPrice);
+        return payload;
+    }
+}
\ No newline at end of file
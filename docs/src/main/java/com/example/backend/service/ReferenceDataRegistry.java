@@ -0,0 +1,227 @@
+package com.example.backend.service;
+
+import com.example.backend.event.EntityChangedEvent;
+import com.example.backend.model.*;
+import com.example.backend.repository.*;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable in-memory copy of the small lookup tables (brands, colors, statuses, roles...).
+ * A snapshot is loaded in one go and replaced atomically whenever one of the tables changes,
+ * so lookups never lock and never hit the database.
+ * The returned entities are shared between threads and must be treated as read-only.
+ */
+@Service
+public class ReferenceDataRegistry {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataRegistry.class);
+    
+    private static final Set<Class<?>> REFERENCE_TYPES = Set.of(
+            BodyStyle.class, Transmission.class, EnergySource.class, Color.class, PackageType.class,
+            Brand.class, Role.class, OrderStatus.class, OrderItemStatus.class);
+    
+    /**
+     * One lookup table, indexed by ID and by case-insensitive name
+     */
+    public static final class Table<T> {
+        
+        private final Object[] byId;
+        private final Map<String, T> byName;
+        private final List<T> all;
+        
+        private Table(List<T> rows, Function<T, Integer> idOf, Function<T, String> nameOf) {
+            int maxId = rows.stream().map(idOf).mapToInt(Integer::intValue).max().orElse(0);
+            Object[] ids = new Object[maxId + 1];
+            Map<String, T> names = new HashMap<>();
+            for (T row : rows) {
+                ids[idOf.apply(row)] = row;
+                names.putIfAbsent(nameKey(nameOf.apply(row)), row);
+            }
+            this.byId = ids;
+            this.byName = Collections.unmodifiableMap(names);
+            this.all = List.copyOf(rows);
+        }
+        
+        @SuppressWarnings("unchecked")
+        public Optional<T> findById(Integer id) {
+            if (id == null || id < 0 || id >= byId.length) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable((T) byId[id]);
+        }
+        
+        public Optional<T> findByName(String name) {
+            return Optional.ofNullable(byName.get(nameKey(name)));
+        }
+        
+        public boolean existsByName(String name) {
+            return byName.containsKey(nameKey(name));
+        }
+        
+        public List<T> findAll() {
+            return all;
+        }
+        
+        // MySQL's default collation compares names case-insensitively, so the registry does too
+        private static String nameKey(String name) {
+            return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+    
+    private static final class Snapshot {
+        Table<BodyStyle> bodyStyles;
+        Table<Transmission> transmissions;
+        Table<EnergySource> energySources;
+        Table<Color> colors;
+        Table<PackageType> packageTypes;
+        Table<Brand> brands;
+        Table<Role> roles;
+        Table<OrderStatus> orderStatuses;
+        Table<OrderItemStatus> orderItemStatuses;
+    }
+    
+    private final BodyStyleRepository bodyStyleRepository;
+    private final TransmissionRepository transmissionRepository;
+    private final EnergySourceRepository energySourceRepository;
+    private final ColorRepository colorRepository;
+    private final PackageTypeRepository packageTypeRepository;
+    private final BrandRepository brandRepository;
+    private final RoleRepository roleRepository;
+    private final OrderStatusRepository orderStatusRepository;
+    private final OrderItemStatusRepository orderItemStatusRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    private volatile Snapshot snapshot;
+    
+    @Autowired
+    public ReferenceDataRegistry(BodyStyleRepository bodyStyleRepository,
+                                 TransmissionRepository transmissionRepository,
+                                 EnergySourceRepository energySourceRepository,
+                                 ColorRepository colorRepository,
+                                 PackageTypeRepository packageTypeRepository,
+                                 BrandRepository brandRepository,
+                                 RoleRepository roleRepository,
+                                 OrderStatusRepository orderStatusRepository,
+                                 OrderItemStatusRepository orderItemStatusRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.bodyStyleRepository = bodyStyleRepository;
+        this.transmissionRepository = transmissionRepository;
+        this.energySourceRepository = energySourceRepository;
+        this.colorRepository = colorRepository;
+        this.packageTypeRepository = packageTypeRepository;
+        this.brandRepository = brandRepository;
+        this.roleRepository = roleRepository;
+        this.orderStatusRepository = orderStatusRepository;
+        this.orderItemStatusRepository = orderItemStatusRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent<?> event) {
+        if (REFERENCE_TYPES.contains(Hibernate.getClass(event.getEntity()))) {
+            reload();
+        }
+    }
+    
+    /**
+     * Load a fresh snapshot of every reference table and swap it in
+     */
+    public void reload() {
+        Snapshot fresh = readOnlyTransaction.execute(status -> {
+            Snapshot loaded = new Snapshot();
+            loaded.bodyStyles = new Table<>(bodyStyleRepository.findAll(),
+                    BodyStyle::getBodyStyleId, BodyStyle::getBodyStyleName);
+            loaded.transmissions = new Table<>(transmissionRepository.findAll(),
+                    Transmission::getTransmissionId, Transmission::getTransmissionName);
+            loaded.energySources = new Table<>(energySourceRepository.findAll(),
+                    EnergySource::getEnergySourceId, EnergySource::getEnergySourceName);
+            loaded.colors = new Table<>(colorRepository.findAll(), Color::getColorId, Color::getColorName);
+            loaded.packageTypes = new Table<>(packageTypeRepository.findAll(),
+                    PackageType::getPackageTypeId, PackageType::getPackageTypeName);
+            loaded.brands = new Table<>(brandRepository.findAll(), Brand::getBrandId, Brand::getBrandName);
+            loaded.roles = new Table<>(roleRepository.findAll(), Role::getRoleId, Role::getName);
+            loaded.orderStatuses = new Table<>(orderStatusRepository.findAll(),
+                    OrderStatus::getStatusId, OrderStatus::getStatusName);
+            loaded.orderItemStatuses = new Table<>(orderItemStatusRepository.findAll(),
+                    OrderItemStatus::getStatusId, OrderItemStatus::getStatusName);
+            return loaded;
+        });
+        snapshot = fresh;
+        log.info("Reference data loaded: {} brands, {} colors, {} package types",
+                fresh.brands.findAll().size(), fresh.colors.findAll().size(), fresh.packageTypes.findAll().size());
+    }
+    
+    public Table<BodyStyle> bodyStyles() {
+        return current().bodyStyles;
+    }
+    
+    public Table<Transmission> transmissions() {
+        return current().transmissions;
+    }
+    
+    public Table<EnergySource> energySources() {
+        return current().energySources;
+    }
+    
+    public Table<Color> colors() {
+        return current().colors;
+    }
+    
+    public Table<PackageType> packageTypes() {
+        return current().packageTypes;
+    }
+    
+    public Table<Brand> brands() {
+        return current().brands;
+    }
+    
+    public Table<Role> roles() {
+        return current().roles;
+    }
+    
+    public Table<OrderStatus> orderStatuses() {
+        return current().orderStatuses;
+    }
+    
+    public Table<OrderItemStatus> orderItemStatuses() {
+        return current().orderItemStatuses;
+    }
+    
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Used before the application finished starting, load synchronously
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.PriceChange;
+import com.example.backend.dto.RepricingRequest;
+import com.example.backend.dto.RepricingResult;
+import com.example.backend.dto.RepricingRule;
+import com.example.backend.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Mass repricing from declarative rules such as "brand 3, package type 2: -5%".
+ * The active catalog is read with one projection query, new prices are computed in parallel on
+ * the fork-join pool, and the changes are written in chunks through the bulk price update path,
+ * which batches the UPDATEs and the PriceHistory rows. A product whose price was edited after the
+ * catalog was read keeps that edit and is reported as skipped.
+ */
+@Service
+public class RepricingService {
+    
+    // Products per fork-join leaf task
+    private static final int SPLIT_THRESHOLD = 2048;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    
+    private final ProductRepository productRepository;
+    private final CurrencyService currencyService;
+    private final ProductBulkUpdateService productBulkUpdateService;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    @Autowired
+    public RepricingService(ProductRepository productRepository,
+                            CurrencyService currencyService,
+                            ProductBulkUpdateService productBulkUpdateService,
+                            PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.currencyService = currencyService;
+        this.productBulkUpdateService = productBulkUpdateService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    /**
+     * Compute and optionally apply new prices
+     * @param request Rules, dry-run flag and the user making the change
+     * @return Every price change, plus the write outcome when not a dry run
+     */
+    public RepricingResult reprice(RepricingRequest request) {
+        if (request.getRules() == null || request.getRules().isEmpty()) {
+            throw new IllegalArgumentException("At least one rule is required");
+        }
+        long start = System.currentTimeMillis();
+        List<CompiledRule> rules = compile(request.getRules());
+        
+        List<Object[]> rows = readOnlyTransaction.execute(status -> productRepository.findActivePricingRows());
+        Catalog catalog = new Catalog(rows);
+        ForkJoinPool.commonPool().invoke(new RepriceTask(catalog, rules, 0, catalog.size));
+        
+        RepricingResult result = new RepricingResult();
+        result.setDryRun(request.isDryRun());
+        Map<Integer, BigDecimal> readPrices = new HashMap<>();
+        Map<Integer, BigDecimal> newPrices = new LinkedHashMap<>();
+        for (int i = 0; i < catalog.size; i++) {
+            if (!catalog.matched[i]) {
+                continue;
+            }
+            result.setMatched(result.getMatched() + 1);
+            if (catalog.newPrices[i].compareTo(catalog.prices[i]) != 0) {
+                result.getChanges().add(new PriceChange(catalog.productIds[i], catalog.prices[i], catalog.newPrices[i]));
+                readPrices.put(catalog.productIds[i], catalog.prices[i]);
+                newPrices.put(catalog.productIds[i], catalog.newPrices[i]);
+            }
+        }
+        
+        if (!request.isDryRun() && !newPrices.isEmpty()) {
+            result.setApplied(productBulkUpdateService.updatePricesIfUnchanged(
+                    readPrices, newPrices, request.getChangedBy()));
+        }
+        result.setElapsedMs(System.currentTimeMillis() - start);
+        return result;
+    }
+    
+    private List<CompiledRule> compile(List<RepricingRule> rules) {
+        String baseCurrency = currencyService.getBaseCurrency();
+        Map<String, BigDecimal> rates = currencyService.getAvailableCurrencies();
+        
+        List<CompiledRule> compiled = new ArrayList<>();
+        for (RepricingRule rule : rules) {
+            BigDecimal percent = rule.getPercent() == null ? BigDecimal.ZERO : rule.getPercent();
+            if (percent.compareTo(HUNDRED.negate()) <= 0) {
+                throw new IllegalArgumentException("Percent must be greater than -100");
+            }
+            
+            // Convert the fixed amount to the base currency once per rule, not once per product
+            BigDecimal amount = rule.getAmount() == null ? BigDecimal.ZERO : rule.getAmount();
+            String currencyCode = rule.getCurrencyCode() == null ? baseCurrency : rule.getCurrencyCode();
+            if (!currencyCode.equals(baseCurrency) && amount.signum() != 0) {
+                BigDecimal rate = rates.get(currencyCode);
+                if (rate == null) {
+                    throw new IllegalArgumentException("Invalid currency code");
+                }
+                amount = amount.divide(rate, 10, RoundingMode.HALF_UP);
+            }
+            
+            compiled.add(new CompiledRule(rule, BigDecimal.ONE.add(percent.divide(HUNDRED)), amount));
+        }
+        return compiled;
+    }
+    
+    private static final class CompiledRule {
+        final Integer brandId;
+        final Integer modelId;
+        final Integer energySourceId;
+        final Integer packageTypeId;
+        final BigDecimal factor;
+        final BigDecimal amount;
+        
+        CompiledRule(RepricingRule rule, BigDecimal factor, BigDecimal amount) {
+            this.brandId = rule.getBrandId();
+            this.modelId = rule.getModelId();
+            this.energySourceId = rule.getEnergySourceId();
+            this.packageTypeId = rule.getPackageTypeId();
+            this.factor = factor;
+            this.amount = amount;
+        }
+        
+        boolean matches(Catalog catalog, int i) {
+            return (brandId == null || brandId == catalog.brandIds[i])
+                    && (modelId == null || modelId == catalog.modelIds[i])
+                    && (energySourceId == null || energySourceId == catalog.energySourceIds[i])
+                    && (packageTypeId == null || packageTypeId == catalog.packageTypeIds[i]);
+        }
+    }
+    
+    /**
+     * Column arrays of the active catalog, tasks write only their own index range
+     */
+    private static final class Catalog {
+        final int size;
+        final int[] productIds;
+        final BigDecimal[] prices;
+        final int[] brandIds;
+        final int[] modelIds;
+        final int[] energySourceIds;
+        final int[] packageTypeIds;
+        final boolean[] matched;
+        final BigDecimal[] newPrices;
+        
+        Catalog(List<Object[]> rows) {
+            size = rows.size();
+            productIds = new int[size];
+            prices = new BigDecimal[size];
+            brandIds = new int[size];
+            modelIds = new int[size];
+            energySourceIds = new int[size];
+            packageTypeIds = new int[size];
+            matched = new boolean[size];
+            newPrices = new BigDecimal[size];
+            for (int i = 0; i < size; i++) {
+                Object[] row = rows.get(i);
+                productIds[i] = (Integer) row[0];
+                prices[i] = (BigDecimal) row[1];
+                brandIds[i] = (Integer) row[2];
+                modelIds[i] = (Integer) row[3];
+                energySourceIds[i] = (Integer) row[4];
+                packageTypeIds[i] = (Integer) row[5];
+            }
+        }
+    }
+    
+    private static final class RepriceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final Catalog catalog;
+        private final List<CompiledRule> rules;
+        private final int from;
+        private final int to;
+        
+        RepriceTask(Catalog catalog, List<CompiledRule> rules, int from, int to) {
+            this.catalog = catalog;
+            this.rules = rules;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RepriceTask(catalog, rules, from, middle),
+                          new RepriceTask(catalog, rules, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                BigDecimal price = catalog.prices[i];
+                boolean matched = false;
+                for (CompiledRule rule : rules) {
+                    if (rule.matches(catalog, i)) {
+                        price = price.multiply(rule.factor).add(rule.amount);
+                        matched = true;
+                    }
+                }
+                catalog.matched[i] = matched;
+                catalog.newPrices[i] = matched ? price.max(BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP) : price;
+            }
+        }
+    }
+}
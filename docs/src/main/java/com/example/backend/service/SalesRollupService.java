@@ -0,0 +1,320 @@
+package com.example.backend.service;
+
+import com.example.backend.model.SalesRollup;
+import com.example.backend.repository.SalesRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pre-aggregated revenue, units and order counts by hour, day and month for every brand, model
+ * and energy source, so sales analytics never scan the order tables.
+ * Orders are claimed with a locking read that skips rows other workers hold, added to the rollups
+ * with one batched upsert and stamped with rolledUpAt in the same transaction, so each order is
+ * counted exactly once whether the periodic sweep or the parallel backfill picks it up.
+ */
+@Service
+public class SalesRollupService {
+    
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+    
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+    public static final String MONTH = "MONTH";
+    
+    public static final String BRAND = "BRAND";
+    public static final String MODEL = "MODEL";
+    public static final String ENERGY_SOURCE = "ENERGY_SOURCE";
+    
+    private static final List<String> GRANULARITIES = List.of(HOUR, DAY, MONTH);
+    private static final List<String> DIMENSIONS = List.of(BRAND, MODEL, ENERGY_SOURCE);
+    
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long MAX_BUCKETS = 10_000;
+    
+    private static final String UPSERT_ROLLUP_SQL =
+            "INSERT INTO sales_rollups (granularity, dimension, bucket_start, dimension_id, revenue, units, order_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), units = units + VALUES(units), " +
+            "order_count = order_count + VALUES(order_count)";
+    
+    private final SalesRollupRepository salesRollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final int backfillThreads;
+    private final AtomicBoolean backfillRunning = new AtomicBoolean(false);
+    
+    @Autowired
+    public SalesRollupService(SalesRollupRepository salesRollupRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${sales.rollup.backfill-threads:4}") int backfillThreads) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.backfillThreads = Math.max(1, backfillThreads);
+    }
+    
+    /**
+     * Add newly committed orders to the rollups, oldest first
+     */
+    @Scheduled(fixedDelayString = "${sales.rollup.interval-ms:2000}")
+    public void rollUpPending() {
+        int total = 0;
+        int claimed;
+        do {
+            claimed = applyWithRetry(() -> jdbcTemplate.queryForList(
+                    "SELECT order_id FROM orders_details WHERE rolled_up_at IS NULL " +
+                    "ORDER BY order_id LIMIT ? FOR UPDATE SKIP LOCKED",
+                    Integer.class, CHUNK_SIZE));
+            total += claimed;
+        } while (claimed == CHUNK_SIZE && !backfillRunning.get());
+        
+        if (total > 0) {
+            log.debug("Rolled up {} orders", total);
+        }
+    }
+    
+    /**
+     * Add every order that is not yet in the rollups, in parallel chunks of order IDs
+     * @return Number of orders added, chunks processed and elapsed time
+     */
+    public Map<String, Object> backfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            throw new IllegalArgumentException("Backfill is already running");
+        }
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(backfillThreads);
+        try {
+            Map<String, Object> range = jdbcTemplate.queryForMap(
+                    "SELECT MIN(order_id) AS first_id, MAX(order_id) AS last_id FROM orders_details " +
+                    "WHERE rolled_up_at IS NULL");
+            List<Future<Integer>> chunks = new ArrayList<>();
+            if (range.get("first_id") != null) {
+                int firstId = ((Number) range.get("first_id")).intValue();
+                int lastId = ((Number) range.get("last_id")).intValue();
+                for (long from = firstId; from <= lastId; from += CHUNK_SIZE) {
+                    int low = (int) from;
+                    int high = (int) Math.min(from + CHUNK_SIZE - 1, lastId);
+                    chunks.add(executor.submit(() -> applyWithRetry(() -> jdbcTemplate.queryForList(
+                            "SELECT order_id FROM orders_details WHERE order_id BETWEEN ? AND ? " +
+                            "AND rolled_up_at IS NULL FOR UPDATE SKIP LOCKED",
+                            Integer.class, low, high))));
+                }
+            }
+            
+            long orders = 0;
+            for (Future<Integer> chunk : chunks) {
+                orders += chunk.get();
+            }
+            
+            Map<String, Object> result = new HashMap<>();
+            result.put("orders", orders);
+            result.put("chunks", chunks.size());
+            result.put("elapsedMs", System.currentTimeMillis() - start);
+            log.info("Sales rollup backfill added {} orders in {} chunks", orders, chunks.size());
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Backfill interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Backfill failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+            backfillRunning.set(false);
+        }
+    }
+    
+    /**
+     * Get pre-aggregated sales
+     * @param granularity HOUR, DAY or MONTH
+     * @param dimension BRAND, MODEL or ENERGY_SOURCE
+     * @param from Start of the range, inclusive
+     * @param to End of the range, exclusive
+     * @param dimensionId Only this brand, model or energy source, or null for all of them
+     * @return Rollup rows ordered by bucket start
+     */
+    public List<SalesRollup> getSales(String granularity, String dimension, LocalDateTime from, LocalDateTime to,
+                                      Integer dimensionId) {
+        if (!GRANULARITIES.contains(granularity)) {
+            throw new IllegalArgumentException("Granularity must be one of " + GRANULARITIES);
+        }
+        if (!DIMENSIONS.contains(dimension)) {
+            throw new IllegalArgumentException("Dimension must be one of " + DIMENSIONS);
+        }
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("Range start must be before its end");
+        }
+        if (HOUR.equals(granularity) && Duration.between(from, to).toHours() > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Range is too long for hourly sales");
+        }
+        
+        return salesRollupRepository.findRollups(granularity, dimension, bucketStart(granularity, from), to, dimensionId);
+    }
+    
+    /**
+     * Get the number of orders not yet in the rollups
+     * @return Pending order count and whether a backfill is running
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("pendingOrders", jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders_details WHERE rolled_up_at IS NULL", Long.class));
+        result.put("backfillRunning", backfillRunning.get());
+        return result;
+    }
+    
+    private int applyWithRetry(OrderClaim claim) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Integer applied = transaction.execute(status -> apply(claim.claim()));
+                return applied == null ? 0 : applied;
+            } catch (PessimisticLockingFailureException e) {
+                // Parallel chunks upsert the same hot rollup rows and can deadlock, the loser retries
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Sales rollup chunk hit a lock conflict, retrying", e);
+            }
+        }
+    }
+    
+    private int apply(List<Integer> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        
+        Map<RollupKey, long[]> totals = new TreeMap<>();
+        Map<Integer, Set<RollupKey>> keysByOrder = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT o.order_id, COALESCE(o.transaction_date, o.created_at), m.brand_id, m.model_id, m.energy_source_id, " +
+                "oi.quantity, oi.total_price FROM orders_items oi " +
+                "JOIN orders_details o ON o.order_id = oi.order_id " +
+                "JOIN products p ON p.product_id = oi.product_id " +
+                "JOIN car_models m ON m.model_id = p.model_id " +
+                "WHERE oi.order_id IN (" + SqlPlaceholders.of(orderIds.size()) + ")",
+                rs -> {
+                    int orderId = rs.getInt(1);
+                    LocalDateTime transactionDate = rs.getTimestamp(2).toLocalDateTime();
+                    int[] dimensionIds = {rs.getInt(3), rs.getInt(4), rs.getInt(5)};
+                    long quantity = rs.getLong(6);
+                    // Revenue is summed in cents so the upsert adds exact amounts
+                    long cents = rs.getBigDecimal(7).movePointRight(2).longValueExact();
+                    
+                    Set<RollupKey> orderKeys = keysByOrder.computeIfAbsent(orderId, id -> new HashSet<>());
+                    for (String granularity : GRANULARITIES) {
+                        LocalDateTime bucket = bucketStart(granularity, transactionDate);
+                        for (int d = 0; d < DIMENSIONS.size(); d++) {
+                            RollupKey key = new RollupKey(granularity, DIMENSIONS.get(d), bucket, dimensionIds[d]);
+                            long[] total = totals.computeIfAbsent(key, k -> new long[3]);
+                            total[0] += cents;
+                            total[1] += quantity;
+                            // An order with several items of one brand counts once for that brand
+                            if (orderKeys.add(key)) {
+                                total[2]++;
+                            }
+                        }
+                    }
+                },
+                orderIds.toArray());
+        
+        // Keys are upserted in one global order so concurrent chunks lock rollup rows in the same order
+        List<Object[]> batch = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> batch.add(new Object[]{
+                key.granularity, key.dimension, Timestamp.valueOf(key.bucketStart), key.dimensionId,
+                BigDecimal.valueOf(total[0], 2), total[1], total[2]
+        }));
+        jdbcTemplate.batchUpdate(UPSERT_ROLLUP_SQL, batch);
+        
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(LocalDateTime.now()));
+        args.addAll(orderIds);
+        jdbcTemplate.update("UPDATE orders_details SET rolled_up_at = ? WHERE order_id IN (" +
+                SqlPlaceholders.of(orderIds.size()) + ")", args.toArray());
+        return orderIds.size();
+    }
+    
+    private static LocalDateTime bucketStart(String granularity, LocalDateTime time) {
+        switch (granularity) {
+            case HOUR:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            case DAY:
+                return time.truncatedTo(ChronoUnit.DAYS);
+            default:
+                return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface OrderClaim {
+        List<Integer> claim();
+    }
+    
+    private static final class RollupKey implements Comparable<RollupKey> {
+        private static final Comparator<RollupKey> ORDER = Comparator
+                .comparing((RollupKey key) -> key.granularity)
+                .thenComparing(key -> key.dimension)
+                .thenComparing(key -> key.bucketStart)
+                .thenComparingInt(key -> key.dimensionId);
+        
+        final String granularity;
+        final String dimension;
+        final LocalDateTime bucketStart;
+        final int dimensionId;
+        
+        RollupKey(String granularity, String dimension, LocalDateTime bucketStart, int dimensionId) {
+            this.granularity = granularity;
+            this.dimension = dimension;
+            this.bucketStart = bucketStart;
+            this.dimensionId = dimensionId;
+        }
+        
+        @Override
+        public int compareTo(RollupKey other) {
+            return ORDER.compare(this, other);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof RollupKey)) {
+                return false;
+            }
+            RollupKey other = (RollupKey) o;
+            return dimensionId == other.dimensionId && granularity.equals(other.granularity)
+                    && dimension.equals(other.dimension) && bucketStart.equals(other.bucketStart);
+        }
+        
+        @Override
+        public int hashCode() {
+            return ((granularity.hashCode() * 31 + dimension.hashCode()) * 31 + bucketStart.hashCode()) * 31
+                    + dimensionId;
+        }
+    }
+}
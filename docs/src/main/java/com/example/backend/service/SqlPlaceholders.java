@@ -0,0 +1,17 @@
+package com.example.backend.service;
+
+import java.util.Collections;
+
+/**
+ * Parameter lists for IN clauses of statements written with JdbcTemplate.
+ */
+final class SqlPlaceholders {
+    
+    private SqlPlaceholders() {
+    }
+    
+    // "?, ?, ?" for three parameters
+    static String of(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
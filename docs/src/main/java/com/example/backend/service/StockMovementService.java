@@ -0,0 +1,276 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.CursorPage;
+import com.example.backend.model.StockMovement;
+import com.example.backend.model.StockSnapshot;
+import com.example.backend.repository.StockMovementRepository;
+import com.example.backend.repository.StockSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only history of stock changes.
+ * Movements recorded inside a transaction are inserted together in one JDBC batch just before it
+ * commits. A background compactor folds old movements into one snapshot row per product, so the
+ * stock according to the ledger is always the snapshot plus a short tail of newer movements.
+ */
+@Service
+public class StockMovementService {
+    
+    private static final Logger log = LoggerFactory.getLogger(StockMovementService.class);
+    
+    public static final String INITIAL = "INITIAL";
+    public static final String ADJUSTMENT = "ADJUSTMENT";
+    public static final String SALE = "SALE";
+    public static final String CORRECTION = "CORRECTION";
+    public static final String REMOVAL = "REMOVAL";
+    
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO stock_movements (product_id, quantity, reason, created_at) VALUES (?, ?, ?, ?)";
+    private static final String UPSERT_SNAPSHOT_SQL =
+            "INSERT INTO stock_snapshots (product_id, stock, last_movement_id, snapshot_at) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE stock = stock + ?, last_movement_id = ?, snapshot_at = ?";
+    private static final String SEED_SNAPSHOTS_SQL =
+            "INSERT INTO stock_snapshots (product_id, stock, last_movement_id, snapshot_at) " +
+            "SELECT p.product_id, p.stock, 0, ? FROM products p " +
+            "WHERE NOT EXISTS (SELECT 1 FROM stock_snapshots s WHERE s.product_id = p.product_id) " +
+            "AND NOT EXISTS (SELECT 1 FROM stock_movements m WHERE m.product_id = p.product_id)";
+    private static final String SEED_COMPACTION_SQL =
+            "INSERT IGNORE INTO stock_compactions (compaction_id, last_movement_id, compacted_at) " +
+            "SELECT 1, COALESCE(MAX(last_movement_id), 0), ? FROM stock_snapshots";
+    
+    private final StockMovementRepository stockMovementRepository;
+    private final StockSnapshotRepository stockSnapshotRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Duration compactionDelay;
+    
+    // Batches being inserted or waiting to commit, each with an ID known to be below all of its own IDs
+    private final ConcurrentHashMap<Object, Long> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong lastAssignedId = new AtomicLong();
+    
+    @Autowired
+    public StockMovementService(StockMovementRepository stockMovementRepository,
+                                StockSnapshotRepository stockSnapshotRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${stock.movement.compaction-delay-seconds:60}") long compactionDelaySeconds) {
+        this.stockMovementRepository = stockMovementRepository;
+        this.stockSnapshotRepository = stockSnapshotRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.compactionDelay = Duration.ofSeconds(compactionDelaySeconds);
+    }
+    
+    /**
+     * Products that existed before the ledger start from a snapshot of their current stock, and the
+     * compaction row is created on first start
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        int seeded = jdbcTemplate.update(SEED_SNAPSHOTS_SQL, Timestamp.valueOf(LocalDateTime.now()));
+        if (seeded > 0) {
+            log.info("Seeded stock snapshots for {} products", seeded);
+        }
+        jdbcTemplate.update(SEED_COMPACTION_SQL, Timestamp.valueOf(LocalDateTime.now()));
+        lastAssignedId.accumulateAndGet(latestMovementId(), Math::max);
+    }
+    
+    /**
+     * Record a stock change. Inside a transaction the movement is written with the rest of
+     * the transaction's movements right before commit, otherwise immediately.
+     * @param productId Product ID
+     * @param quantity Signed stock change
+     * @param reason Why the stock changed
+     */
+    public void record(Integer productId, int quantity, String reason) {
+        if (quantity == 0) {
+            return;
+        }
+        StockMovement movement = new StockMovement(null, productId, quantity, reason, LocalDateTime.now());
+        
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Object token = beginInsert();
+            try {
+                insert(List.of(movement));
+            } finally {
+                inFlight.remove(token);
+            }
+            return;
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<StockMovement> pending = (List<StockMovement>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<StockMovement> batch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private Object token;
+                
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    token = beginInsert();
+                    insert(batch);
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    if (token != null) {
+                        inFlight.remove(token);
+                    }
+                    TransactionSynchronizationManager.unbindResourceIfPossible(StockMovementService.this);
+                }
+            });
+            pending = batch;
+        }
+        pending.add(movement);
+    }
+    
+    /**
+     * Get the stock of a product according to the ledger
+     * @param productId Product ID
+     * @return Snapshot stock, number of newer movements and their sum
+     */
+    public Map<String, Object> getLedgerStock(Integer productId) {
+        StockSnapshot snapshot = stockSnapshotRepository.findById(productId).orElse(null);
+        int snapshotStock = snapshot == null ? 0 : snapshot.getStock();
+        long lastMovementId = snapshot == null ? 0L : snapshot.getLastMovementId();
+        
+        long tail = stockMovementRepository.sumQuantityAfter(productId, lastMovementId);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("productId", productId);
+        result.put("stock", snapshotStock + tail);
+        result.put("snapshotStock", snapshotStock);
+        result.put("snapshotAt", snapshot == null ? null : snapshot.getSnapshotAt());
+        result.put("tailMovements", stockMovementRepository.countAfter(productId, lastMovementId));
+        return result;
+    }
+    
+    /**
+     * Get the movements of a product, newest first
+     * @param productId Product ID
+     * @param before Movement ID from the previous page's nextCursor, null for the first page
+     * @param size Page size
+     * @return Page of movements
+     */
+    public CursorPage<StockMovement> getMovements(Integer productId, Long before, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        
+        List<StockMovement> rows = stockMovementRepository.findMovementsBefore(
+                productId, before, KeysetCursor.withLookAhead(pageSize));
+        boolean hasMore = KeysetCursor.hasMore(rows, pageSize);
+        List<StockMovement> items = new ArrayList<>(KeysetCursor.page(rows, pageSize));
+        Long nextCursor = hasMore ? items.get(items.size() - 1).getMovementId() : null;
+        
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+    
+    /**
+     * Fold movements older than the compaction delay into the snapshots.
+     * Movement IDs are taken when a batch is inserted, which can be long after the movements were
+     * recorded, and batches commit in any order, so the age alone does not tell that every smaller
+     * ID has committed. The watermark therefore never passes an ID that was assigned before this run
+     * started and stays below every batch still in flight; anything at or under it has either
+     * committed, and is visible to the compacting transaction, or rolled back. Batches are tracked
+     * in memory, so this holds for movements written by this application instance.
+     * The fold runs under a lock on the compaction row, so instances compact one after another and
+     * each starts from the watermark the previous one committed.
+     */
+    @Scheduled(fixedDelayString = "${stock.movement.compact-interval-ms:60000}")
+    public void compact() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(compactionDelay));
+        
+        // Read the latest ID before looking at the batches in flight: any batch owning a smaller ID
+        // either shows up below or has finished before the compacting transaction starts
+        long latest = latestMovementId();
+        lastAssignedId.accumulateAndGet(latest, Math::max);
+        long settled = inFlight.values().stream().reduce(latest, Math::min);
+        
+        Integer folded = transaction.execute(status -> {
+            // Locking read first, so the reads below see what a compactor that held the lock committed
+            List<Long> locked = jdbcTemplate.queryForList(
+                    "SELECT last_movement_id FROM stock_compactions WHERE compaction_id = 1 FOR UPDATE", Long.class);
+            if (locked.isEmpty()) {
+                return 0;
+            }
+            long previous = locked.get(0);
+            Long watermark = jdbcTemplate.queryForObject(
+                    "SELECT MAX(movement_id) FROM stock_movements WHERE movement_id <= ? AND created_at < ?",
+                    Long.class, settled, cutoff);
+            if (watermark == null || watermark <= previous) {
+                return 0;
+            }
+            
+            List<Object[]> deltas = jdbcTemplate.query(
+                    "SELECT product_id, SUM(quantity) FROM stock_movements " +
+                    "WHERE movement_id > ? AND movement_id <= ? GROUP BY product_id",
+                    (rs, rowNum) -> new Object[]{rs.getInt(1), rs.getLong(2)},
+                    previous, watermark);
+            
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> batch = new ArrayList<>();
+            for (Object[] delta : deltas) {
+                batch.add(new Object[]{delta[0], delta[1], watermark, now, delta[1], watermark, now});
+            }
+            jdbcTemplate.batchUpdate(UPSERT_SNAPSHOT_SQL, batch);
+            jdbcTemplate.update("UPDATE stock_compactions SET last_movement_id = ?, compacted_at = ? " +
+                    "WHERE compaction_id = 1", watermark, now);
+            return deltas.size();
+        });
+        
+        if (folded != null && folded > 0) {
+            log.debug("Compacted stock movements of {} products", folded);
+        }
+    }
+    
+    private Object beginInsert() {
+        Object token = new Object();
+        inFlight.put(token, lastAssignedId.get());
+        return token;
+    }
+    
+    private long latestMovementId() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(movement_id), 0) FROM stock_movements", Long.class);
+    }
+    
+    private void insert(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        for (StockMovement movement : movements) {
+            batch.add(new Object[]{
+                    movement.getProductId(),
+                    movement.getQuantity(),
+                    movement.getReason(),
+                    Timestamp.valueOf(movement.getCreatedAt())
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, batch);
+    }
+}
@@ -0,0 +1,414 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.StockReservation;
+import com.example.backend.event.EntityChangedEvent;
+import com.example.backend.model.Product;
+import com.example.backend.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory stock reservation ledger for checkout.
+ * Every product gets its own set of atomic counters, so reservations on different products never
+ * contend and reservations on the same product only retry a compare-and-set instead of taking a
+ * row lock. A reservation holds stock until it is confirmed, released or its TTL runs out.
+ * Confirmed quantities are written to the Products table in batches by a background flush.
+ */
+@Service
+public class StockReservationService {
+    
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+    
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET stock = stock - ?, updated_at = ? WHERE product_id = ? AND stock >= ?";
+    private static final String CLEAR_STOCK_SQL =
+            "UPDATE products SET stock = 0, updated_at = ? WHERE product_id = ?";
+    private static final int CHANGE_STRIPES = 64;
+    
+    private final ProductRepository productRepository;
+    private final InventoryCounters inventoryCounters;
+    private final StockMovementService stockMovementService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration holdTtl;
+    
+    private final ConcurrentHashMap<Integer, Ledger> ledgers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Hold> holds = new ConcurrentHashMap<>();
+    
+    // Bumped, per stripe of products, when a stock change finds no ledger, so a ledger loaded
+    // before that change is thrown away instead of selling against the old stock
+    private final AtomicLongArray unloadedChanges = new AtomicLongArray(CHANGE_STRIPES);
+    
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder confirmed = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder flushedUnits = new LongAdder();
+    
+    @Autowired
+    public StockReservationService(ProductRepository productRepository,
+                                   InventoryCounters inventoryCounters,
+                                   StockMovementService stockMovementService,
+                                   ApplicationEventPublisher eventPublisher,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${stock.reservation.hold-ttl-seconds:900}") long holdTtlSeconds) {
+        this.productRepository = productRepository;
+        this.inventoryCounters = inventoryCounters;
+        this.stockMovementService = stockMovementService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.holdTtl = Duration.ofSeconds(holdTtlSeconds);
+    }
+    
+    /**
+     * Hold stock of a product for a checkout
+     * @param productId Product ID
+     * @param quantity Number of units to hold
+     * @return Reservation to confirm or release later
+     */
+    public StockReservation reserve(Integer productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        
+        Ledger ledger = ledger(productId);
+        if (!ledger.tryTake(quantity)) {
+            rejected.increment();
+            throw new IllegalArgumentException("Insufficient stock");
+        }
+        ledger.held.addAndGet(quantity);
+        
+        Hold hold = new Hold(UUID.randomUUID().toString(), productId, quantity, Instant.now().plus(holdTtl));
+        holds.put(hold.reservationId, hold);
+        reserved.increment();
+        return hold.toReservation();
+    }
+    
+    /**
+     * Turn a reservation into a sale. The stock decrement is persisted by the next flush.
+     * @param reservationId Reservation ID
+     * @return Confirmed reservation
+     */
+    public StockReservation confirm(String reservationId) {
+        // Removing the hold is what decides the race between confirm, release and expiry
+        Hold hold = holds.remove(reservationId);
+        if (hold == null) {
+            throw new IllegalArgumentException("Reservation not found or expired");
+        }
+        
+        Ledger ledger = ledgers.get(hold.productId);
+        ledger.held.addAndGet(-hold.quantity);
+        ledger.unflushed.addAndGet(hold.quantity);
+        confirmed.increment();
+        return hold.toReservation();
+    }
+    
+    /**
+     * Give the held stock back
+     * @param reservationId Reservation ID
+     */
+    public void release(String reservationId) {
+        Hold hold = holds.remove(reservationId);
+        if (hold == null) {
+            throw new IllegalArgumentException("Reservation not found or expired");
+        }
+        giveBack(hold);
+        released.increment();
+    }
+    
+    /**
+     * Take stock for a sale that the caller writes to the Products table in the current transaction.
+     * The units stop being reservable at once and come back if the transaction rolls back.
+     * @param quantities Quantity per product
+     */
+    public void takeForSale(Map<Integer, Integer> quantities) {
+        Map<Integer, Integer> taken = new HashMap<>();
+        try {
+            for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+                if (!ledger(entry.getKey()).tryTake(entry.getValue())) {
+                    rejected.increment();
+                    throw new IllegalArgumentException("Insufficient stock for product " + entry.getKey());
+                }
+                taken.put(entry.getKey(), entry.getValue());
+            }
+        } catch (RuntimeException e) {
+            taken.forEach((productId, quantity) -> ledgers.get(productId).available.addAndGet(quantity));
+            throw e;
+        }
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        taken.forEach((productId, quantity) -> ledgers.get(productId).available.addAndGet(quantity));
+                    }
+                }
+            });
+        }
+    }
+    
+    /**
+     * Shift the available stock of a product after its stock was changed outside the ledger.
+     * Applied once the current transaction commits.
+     * @param productId Product ID
+     * @param delta Stock change
+     */
+    public void adjustAvailable(Integer productId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        afterCommit(() -> ledgers.compute(productId, (id, ledger) -> {
+            if (ledger == null) {
+                unloadedChanges.incrementAndGet(stripe(id));
+            } else {
+                ledger.available.addAndGet(delta);
+            }
+            return ledger;
+        }));
+    }
+    
+    /**
+     * Stop reserving a product that was deleted, once the current transaction commits.
+     * Outstanding holds simply expire.
+     * @param productId Product ID
+     */
+    public void evict(Integer productId) {
+        afterCommit(() -> ledgers.compute(productId, (id, ledger) -> {
+            if (ledger == null) {
+                unloadedChanges.incrementAndGet(stripe(id));
+            } else {
+                ledger.available.set(0);
+            }
+            return ledger;
+        }));
+    }
+    
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:5000}")
+    public void expireHolds() {
+        Instant now = Instant.now();
+        for (Hold hold : holds.values()) {
+            if (hold.expiresAt.isBefore(now) && holds.remove(hold.reservationId, hold)) {
+                giveBack(hold);
+                expired.increment();
+            }
+        }
+    }
+    
+    /**
+     * Write all confirmed but unpersisted decrements to the Products table in one batch
+     */
+    @Scheduled(fixedDelayString = "${stock.reservation.flush-interval-ms:1000}")
+    public void flush() {
+        Map<Integer, Integer> decrements = new HashMap<>();
+        ledgers.forEach((productId, ledger) -> {
+            int quantity = ledger.unflushed.getAndSet(0);
+            if (quantity > 0) {
+                decrements.put(productId, quantity);
+            }
+        });
+        if (decrements.isEmpty()) {
+            return;
+        }
+        
+        try {
+            transaction.executeWithoutResult(status -> writeDecrements(decrements));
+            decrements.values().forEach(flushedUnits::add);
+        } catch (RuntimeException e) {
+            // Put the quantities back so the next flush retries them
+            decrements.forEach((productId, quantity) -> ledgers.get(productId).unflushed.addAndGet(quantity));
+            log.error("Stock flush failed for {} products, will retry", decrements.size(), e);
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+    
+    /**
+     * Get reservation metrics
+     * @return Counters and the number of open holds
+     */
+    public Map<String, Object> getStats() {
+        int unflushed = 0;
+        for (Ledger ledger : ledgers.values()) {
+            unflushed += ledger.unflushed.get();
+        }
+        
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("reserved", reserved.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("confirmed", confirmed.sum());
+        stats.put("released", released.sum());
+        stats.put("expired", expired.sum());
+        stats.put("openHolds", holds.size());
+        stats.put("unflushedUnits", unflushed);
+        stats.put("flushedUnits", flushedUnits.sum());
+        stats.put("trackedProducts", ledgers.size());
+        return stats;
+    }
+    
+    private void writeDecrements(Map<Integer, Integer> decrements) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>();
+        List<Integer> productIds = new ArrayList<>(decrements.keySet());
+        for (Integer productId : productIds) {
+            int quantity = decrements.get(productId);
+            batch.add(new Object[]{quantity, now, productId, quantity});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, batch);
+        
+        Map<Integer, Integer> applied = new HashMap<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            Integer productId = productIds.get(i);
+            // SUCCESS_NO_INFO (-2) still means the row was written
+            if (updated[i] != 0) {
+                applied.put(productId, decrements.get(productId));
+                stockMovementService.record(productId, -decrements.get(productId), StockMovementService.SALE);
+                continue;
+            }
+            // Stock was lowered by hand below what was already sold, the sale stands
+            List<Integer> stock = jdbcTemplate.queryForList(
+                    "SELECT stock FROM products WHERE product_id = ?", Integer.class, productId);
+            if (!stock.isEmpty()) {
+                log.warn("Stock of product {} is below its confirmed reservations, clearing it", productId);
+                jdbcTemplate.update(CLEAR_STOCK_SQL, now, productId);
+                applied.put(productId, stock.get(0));
+                stockMovementService.record(productId, -stock.get(0), StockMovementService.CORRECTION);
+            }
+        }
+        
+        // Caches, indexes and counters are kept current by the same events JPA writes produce
+        for (Product product : productRepository.findAllById(applied.keySet())) {
+            if (Boolean.TRUE.equals(product.getIsActive())) {
+                inventoryCounters.adjust(product.getModel().getModelId(), -applied.get(product.getProductId()));
+            }
+            eventPublisher.publishEvent(EntityChangedEvent.updated(product));
+        }
+    }
+    
+    private Ledger ledger(Integer productId) {
+        Ledger ledger = ledgers.get(productId);
+        if (ledger != null) {
+            return ledger;
+        }
+        // Only the first reservations of a product read its stock from the database. The query runs
+        // outside the map so it never holds a bin lock; when two threads race, the first ledger wins.
+        // A stock change committed during the load is not in the map to be applied to, so the load is
+        // installed only if no such change happened in its stripe, and repeated otherwise.
+        int stripe = stripe(productId);
+        while (true) {
+            long changesBeforeLoad = unloadedChanges.get(stripe);
+            Ledger loaded = readOnlyTransaction.execute(status ->
+                    productRepository.findActiveStockByProductId(productId)
+                            .map(Ledger::new)
+                            .orElseThrow(() -> new IllegalArgumentException("Product not found")));
+            Ledger installed = ledgers.compute(productId, (id, existing) -> {
+                if (existing != null) {
+                    return existing;
+                }
+                return unloadedChanges.get(stripe) == changesBeforeLoad ? loaded : null;
+            });
+            if (installed != null) {
+                return installed;
+            }
+        }
+    }
+    
+    private static int stripe(Integer productId) {
+        return Math.floorMod(productId, CHANGE_STRIPES);
+    }
+    
+    private void giveBack(Hold hold) {
+        Ledger ledger = ledgers.get(hold.productId);
+        ledger.held.addAndGet(-hold.quantity);
+        ledger.available.addAndGet(hold.quantity);
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    private static final class Ledger {
+        // Stock that can still be reserved: persisted stock minus holds minus unflushed sales
+        final AtomicInteger available;
+        final AtomicInteger held = new AtomicInteger();
+        final AtomicInteger unflushed = new AtomicInteger();
+        
+        Ledger(int stock) {
+            this.available = new AtomicInteger(stock);
+        }
+        
+        boolean tryTake(int quantity) {
+            while (true) {
+                int current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+    }
+    
+    private static final class Hold {
+        final String reservationId;
+        final Integer productId;
+        final int quantity;
+        final Instant expiresAt;
+        
+        Hold(String reservationId, Integer productId, int quantity, Instant expiresAt) {
+            this.reservationId = reservationId;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+        }
+        
+        StockReservation toReservation() {
+            return new StockReservation(reservationId, productId, quantity, expiresAt);
+        }
+    }
+}
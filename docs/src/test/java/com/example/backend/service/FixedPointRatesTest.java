@@ -0,0 +1,113 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FixedPointRatesTest {
+
+    private static final String[] RATES = {
+        "1", "0.5", "1.5", "0.034127", "0.921034", "32.123456", "0.000001", "0.000005", "1000000"
+    };
+
+    @Test
+    void sixDecimalRatesMatchBigDecimal() {
+        Random random = new Random(42);
+        for (String code : RATES) {
+            BigDecimal rate = new BigDecimal(code);
+            FixedPointRates fixed = FixedPointRates.of(Map.of("X", rate));
+            assertTrue(fixed.supports("X"), code);
+            long maxAmount = Long.MAX_VALUE / rate.movePointRight(FixedPointRates.RATE_SCALE).longValueExact();
+            for (int i = 0; i < 10_000; i++) {
+                long amount = random.nextLong() % Math.min(maxAmount, 100_000_000_000L);
+                assertEquals(expected(amount, rate), fixed.convert(amount, "X"), code + " * " + amount);
+            }
+        }
+    }
+
+    @Test
+    void tiesRoundAwayFromZero() {
+        // 1.00 * 0.005 = 0.005 and 0.01 * 1.5 = 0.015, both exactly halfway
+        FixedPointRates fixed = FixedPointRates.of(Map.of("A", new BigDecimal("0.005"), "B", new BigDecimal("1.5")));
+        assertEquals(1, fixed.convert(100, "A"));
+        assertEquals(-1, fixed.convert(-100, "A"));
+        assertEquals(2, fixed.convert(1, "B"));
+        assertEquals(-2, fixed.convert(-1, "B"));
+        assertEquals(expected(-100, new BigDecimal("0.005")), fixed.convert(-100, "A"));
+        assertEquals(expected(-1, new BigDecimal("1.5")), fixed.convert(-1, "B"));
+    }
+
+    @Test
+    void negativeAmountsMatchBigDecimal() {
+        BigDecimal rate = new BigDecimal("0.921034");
+        FixedPointRates fixed = FixedPointRates.of(Map.of("X", rate));
+        for (long amount = -100_000; amount <= 0; amount++) {
+            assertEquals(expected(amount, rate), fixed.convert(amount, "X"), String.valueOf(amount));
+        }
+    }
+
+    @Test
+    void amountsAboveMaxAmountThrowSoCallersFallBack() {
+        // Scaled rate 10^12, so the largest amount whose product fits in a long is 9223372
+        BigDecimal rate = new BigDecimal("1000000");
+        FixedPointRates fixed = FixedPointRates.of(Map.of("X", rate));
+        long maxAmount = Long.MAX_VALUE / 1_000_000_000_000L;
+
+        assertEquals(expected(maxAmount, rate), fixed.convert(maxAmount, "X"));
+        assertEquals(expected(-maxAmount, rate), fixed.convert(-maxAmount, "X"));
+        assertThrows(ArithmeticException.class, () -> fixed.convert(maxAmount + 1, "X"));
+        assertThrows(ArithmeticException.class, () -> fixed.convert(-maxAmount - 1, "X"));
+
+        long[] amounts = {1, maxAmount + 1};
+        assertThrows(ArithmeticException.class, () -> fixed.convert(amounts, "X", new long[amounts.length]));
+    }
+
+    @Test
+    void batchConversionMatchesSingleConversion() {
+        BigDecimal rate = new BigDecimal("32.123456");
+        FixedPointRates fixed = FixedPointRates.of(Map.of("X", rate));
+        long[] amounts = {0, 1, -1, 99, -99, 12_345_678, -12_345_678};
+        long[] converted = new long[amounts.length];
+        fixed.convert(amounts, "X", converted);
+        for (int i = 0; i < amounts.length; i++) {
+            assertEquals(expected(amounts[i], rate), converted[i]);
+        }
+    }
+
+    @Test
+    void ratesWithMoreThanSixDecimalsAreLeftOut() {
+        FixedPointRates fixed = FixedPointRates.of(Map.of(
+                "A", new BigDecimal("0.1234567"),
+                "B", new BigDecimal("0.1234560"),
+                "C", new BigDecimal("10000000000000")));
+        assertFalse(fixed.supports("A"));
+        assertTrue(fixed.supports("B"));
+        assertFalse(fixed.supports("C"));
+    }
+
+    @Test
+    void roundToMinorMatchesSetScale() {
+        String[] amounts = {"0.005", "-0.005", "0.004999", "-0.015", "12.345", "-12.3449", "7"};
+        for (String amount : amounts) {
+            BigDecimal value = new BigDecimal(amount);
+            assertEquals(value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact(),
+                    FixedPointRates.roundToMinor(value), amount);
+        }
+    }
+
+    private static long expected(long amountMinor, BigDecimal rate) {
+        return FixedPointRates.fromMinor(amountMinor)
+                .multiply(rate)
+                .setScale(FixedPointRates.MINOR_SCALE, RoundingMode.HALF_UP)
+                .unscaledValue()
+                .longValueExact();
+    }
+}